@@ -0,0 +1,52 @@
+package com.ticketsystem.api.event;
+
+/**
+ * One change to a ticket. Sequence numbers grow by one per event across all
+ * tickets and survive restarts when persistence is enabled, so a subscriber
+ * can resume after the last sequence it processed. Events of one ticket are
+ * numbered in the order the changes were applied.
+ */
+public class TicketEvent {
+    public enum Type {
+        CREATED,
+        ASSIGNED,
+        REPLIED,
+        // Ticket fields or, when the reply id is set, a reply were edited
+        EDITED,
+        RESOLVED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String ticketId;
+    private final long ticketVersion;
+    private final String replyId;
+    private final String assignedTo;
+    private final long timestampMillis;
+
+    public TicketEvent(long sequence, Type type, String ticketId, long ticketVersion, String replyId,
+                       String assignedTo, long timestampMillis) {
+        this.sequence = sequence;
+        this.type = type;
+        this.ticketId = ticketId;
+        this.ticketVersion = ticketVersion;
+        this.replyId = replyId;
+        this.assignedTo = assignedTo;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public long getSequence() { return sequence; }
+    public Type getType() { return type; }
+    public String getTicketId() { return ticketId; }
+    // Version of the ticket once the change was applied
+    public long getTicketVersion() { return ticketVersion; }
+    public String getReplyId() { return replyId; }
+    public String getAssignedTo() { return assignedTo; }
+    public long getTimestampMillis() { return timestampMillis; }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + ticketId + " v" + ticketVersion
+            + (replyId != null ? " reply " + replyId : "");
+    }
+}
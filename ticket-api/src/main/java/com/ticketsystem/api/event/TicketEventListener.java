@@ -0,0 +1,22 @@
+package com.ticketsystem.api.event;
+
+/**
+ * Whiteboard listener for ticket changes: register an implementation as an
+ * OSGi service and the core bundle delivers events to it in sequence order on
+ * its own thread. A slow listener never blocks ticket writes; it falls behind
+ * and catches up from the retained event history, at most
+ * {@link #BUFFER} events at a time.
+ */
+public interface TicketEventListener {
+    // Service property: last sequence already processed; delivery resumes after it. Only new events when unset
+    String FROM_SEQUENCE = "ticket.event.from";
+    // Service property: events handed to the listener per batch
+    String BUFFER = "ticket.event.buffer";
+
+    void ticketChanged(TicketEvent event);
+
+    // Events that left the history before the listener read them, or whose write failed before it was durable;
+    // the listener can re-read the tickets instead
+    default void eventsMissed(long fromSequence, long toSequence) {
+    }
+}
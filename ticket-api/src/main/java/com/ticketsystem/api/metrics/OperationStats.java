@@ -0,0 +1,50 @@
+package com.ticketsystem.api.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls of one service method since the service started. Percentiles come
+ * from a log-linear histogram and are within about 3% of the exact value.
+ */
+public class OperationStats {
+    private final String method;
+    private final long calls;
+    private final long errors;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    public OperationStats(String method, long calls, long errors, long meanNanos,
+                          long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        this.method = method;
+        this.calls = calls;
+        this.errors = errors;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getMethod() { return method; }
+    public long getCalls() { return calls; }
+    // Calls that threw
+    public long getErrors() { return errors; }
+    public long getMeanNanos() { return meanNanos; }
+    public long getP50Nanos() { return p50Nanos; }
+    public long getP99Nanos() { return p99Nanos; }
+    public long getP999Nanos() { return p999Nanos; }
+    public long getMaxNanos() { return maxNanos; }
+
+    @Override
+    public String toString() {
+        return method + ": " + calls + " calls, " + errors + " errors, p50 " + micros(p50Nanos)
+            + "us, p99 " + micros(p99Nanos) + "us, p99.9 " + micros(p999Nanos) + "us, max " + micros(maxNanos) + "us";
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ticketsystem.api.metrics;
+
+import java.util.Map;
+
+/**
+ * Instrumentation of the registered TicketService: call and error counts and
+ * latency percentiles per service method, plus gauges of the current state.
+ * Methods are named after the TicketService method, with overloads suffixed
+ * ("updateTicketVersioned", "searchTicketsPaged").
+ */
+public interface TicketMetrics {
+    // Methods called at least once, by name
+    Map<String, OperationStats> getOperations();
+
+    // Zero counts for a method not called yet; null for an unknown name
+    OperationStats getOperation(String method);
+
+    // Ticket, reply and user counts and index sizes, read when called
+    Map<String, Long> getGauges();
+}
@@ -0,0 +1,22 @@
+package com.ticketsystem.api.model;
+
+// Input of a bulk reply; parentReplyId is null for a top-level reply
+public class ReplyDraft {
+    private String content;
+    private String parentReplyId;
+
+    public ReplyDraft() {
+    }
+
+    public ReplyDraft(String content, String parentReplyId) {
+        this.content = content;
+        this.parentReplyId = parentReplyId;
+    }
+
+    // Getters and Setters
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public String getParentReplyId() { return parentReplyId; }
+    public void setParentReplyId(String parentReplyId) { this.parentReplyId = parentReplyId; }
+}
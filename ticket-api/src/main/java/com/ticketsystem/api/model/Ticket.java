@@ -5,6 +5,7 @@ import java.util.List;
 
 public class Ticket {
     private String id;
+    private long version;
     private String title;
     private String description;
     private String status;
@@ -18,6 +19,9 @@ public class Ticket {
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
@@ -0,0 +1,26 @@
+package com.ticketsystem.api.model;
+
+// Input of a bulk ticket creation; assignedTo is optional
+public class TicketDraft {
+    private String title;
+    private String description;
+    private String assignedTo;
+
+    public TicketDraft() {
+    }
+
+    public TicketDraft(String title, String description) {
+        this.title = title;
+        this.description = description;
+    }
+
+    // Getters and Setters
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getAssignedTo() { return assignedTo; }
+    public void setAssignedTo(String assignedTo) { this.assignedTo = assignedTo; }
+}
@@ -0,0 +1,117 @@
+package com.ticketsystem.api.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * Immutable, versioned view of a ticket. Writers never modify a published
+ * snapshot; every change publishes a new one with the next version, so a
+ * snapshot can be shared between threads without locking or copying.
+ * Timestamps are epoch milliseconds, 0 meaning "not set", and the status is
+ * held as a {@link TicketStatus}. Replies are not part of the snapshot; read
+ * them with {@code getTicketRepliesTree}.
+ */
+public final class TicketSnapshot {
+    private final String id;
+    private final long version;
+    private final String title;
+    private final String description;
+    private final TicketStatus status;
+    private final String assignedTo;
+    private final long createdAt;
+    private final long lastUpdatedAt;
+    private final long resolvedAt;
+
+    private TicketSnapshot(Builder builder) {
+        this.id = builder.id;
+        this.version = builder.version;
+        this.title = builder.title;
+        this.description = builder.description;
+        this.status = builder.status;
+        this.assignedTo = builder.assignedTo;
+        this.createdAt = builder.createdAt;
+        this.lastUpdatedAt = builder.lastUpdatedAt;
+        this.resolvedAt = builder.resolvedAt;
+    }
+
+    public static Builder builder(String id) {
+        return new Builder(id);
+    }
+
+    public Builder toBuilder() {
+        return new Builder(id)
+                .version(version)
+                .title(title)
+                .description(description)
+                .status(status)
+                .assignedTo(assignedTo)
+                .createdAt(createdAt)
+                .lastUpdatedAt(lastUpdatedAt)
+                .resolvedAt(resolvedAt);
+    }
+
+    // Detached mutable copy for callers of the Ticket based API
+    public Ticket toTicket() {
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        ticket.setVersion(version);
+        ticket.setTitle(title);
+        ticket.setDescription(description);
+        ticket.setStatus(getStatus());
+        ticket.setAssignedTo(assignedTo);
+        ticket.setCreatedAt(toDate(createdAt));
+        ticket.setLastUpdatedAt(toDate(lastUpdatedAt));
+        ticket.setResolvedAt(toDate(resolvedAt));
+        ticket.setReplies(new ArrayList<>());
+        return ticket;
+    }
+
+    public String getId() { return id; }
+    public long getVersion() { return version; }
+    public String getTitle() { return title; }
+    public String getDescription() { return description; }
+    public String getStatus() { return status != null ? status.name() : null; }
+    public TicketStatus getTicketStatus() { return status; }
+    public String getAssignedTo() { return assignedTo; }
+    public long getCreatedAtMillis() { return createdAt; }
+    public long getLastUpdatedAtMillis() { return lastUpdatedAt; }
+    public long getResolvedAtMillis() { return resolvedAt; }
+
+    private static Date toDate(long epochMillis) {
+        return epochMillis != 0 ? new Date(epochMillis) : null;
+    }
+
+    public static final class Builder {
+        private final String id;
+        private long version;
+        private String title;
+        private String description;
+        private TicketStatus status;
+        private String assignedTo;
+        private long createdAt;
+        private long lastUpdatedAt;
+        private long resolvedAt;
+
+        private Builder(String id) {
+            if (id == null) {
+                throw new IllegalArgumentException("Ticket id is required");
+            }
+            this.id = id;
+        }
+
+        public Builder version(long version) { this.version = version; return this; }
+        public Builder title(String title) { this.title = title; return this; }
+        public Builder description(String description) { this.description = description; return this; }
+        public Builder status(TicketStatus status) { this.status = status; return this; }
+        // Throws IllegalArgumentException for a name that is not a TicketStatus
+        public Builder status(String status) { this.status = status != null ? TicketStatus.parse(status) : null; return this; }
+        public Builder assignedTo(String assignedTo) { this.assignedTo = assignedTo; return this; }
+        public Builder createdAt(long createdAt) { this.createdAt = createdAt; return this; }
+        public Builder lastUpdatedAt(long lastUpdatedAt) { this.lastUpdatedAt = lastUpdatedAt; return this; }
+        public Builder resolvedAt(long resolvedAt) { this.resolvedAt = resolvedAt; return this; }
+
+        public TicketSnapshot build() {
+            return new TicketSnapshot(this);
+        }
+    }
+}
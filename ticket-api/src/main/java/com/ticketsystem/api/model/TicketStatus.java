@@ -0,0 +1,50 @@
+package com.ticketsystem.api.model;
+
+/**
+ * Workflow states of a ticket. {@link Ticket} carries the state by name, so
+ * {@code getStatus()} values are always one of these names.
+ */
+public enum TicketStatus {
+    OPEN,
+    IN_PROGRESS,
+    WAITING_ON_CUSTOMER,
+    ON_HOLD,
+    RESOLVED,
+    CLOSED;
+
+    private static final TicketStatus[] VALUES = values();
+
+    // Open tickets count towards workload and can become overdue
+    public boolean isOpen() {
+        return this != RESOLVED && this != CLOSED;
+    }
+
+    /**
+     * Looks a status up by name, ignoring case. Throws IllegalArgumentException
+     * for names that are not a workflow state.
+     */
+    public static TicketStatus parse(String name) {
+        TicketStatus status = find(name);
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown ticket status: " + name);
+        }
+        return status;
+    }
+
+    // Like parse, but returns null for unknown names
+    public static TicketStatus find(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (TicketStatus status : VALUES) {
+            if (status.name().equalsIgnoreCase(name)) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    public static TicketStatus ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,30 @@
+package com.ticketsystem.api.query;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How a {@link TicketQuery} is run: the index that drives it, the estimated
+ * number of candidate tickets read from it, and one line per step, including
+ * the alternatives the planner rejected.
+ */
+public class QueryPlan {
+    private final String drivingIndex;
+    private final long estimatedCandidates;
+    private final List<String> steps;
+
+    public QueryPlan(String drivingIndex, long estimatedCandidates, List<String> steps) {
+        this.drivingIndex = drivingIndex;
+        this.estimatedCandidates = estimatedCandidates;
+        this.steps = Collections.unmodifiableList(steps);
+    }
+
+    public String getDrivingIndex() { return drivingIndex; }
+    public long getEstimatedCandidates() { return estimatedCandidates; }
+    public List<String> getSteps() { return steps; }
+
+    @Override
+    public String toString() {
+        return String.join("\n", steps);
+    }
+}
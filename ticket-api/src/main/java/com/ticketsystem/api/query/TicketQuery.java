@@ -0,0 +1,121 @@
+package com.ticketsystem.api.query;
+
+import com.ticketsystem.api.model.TicketStatus;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typed ticket query for {@link com.ticketsystem.api.service.TicketService#query}.
+ * Criteria are combined with AND; an empty query matches every ticket. Queries
+ * are immutable, each method returns a narrowed copy:
+ *
+ * <pre>
+ * TicketQuery.all()
+ *     .withStatus(TicketStatus.OPEN)
+ *     .assigneeStartsWith("it.")
+ *     .createdWithinLast(4, TimeUnit.HOURS)
+ *     .matching("vpn");
+ * </pre>
+ */
+public final class TicketQuery {
+    private static final TicketQuery ALL = new TicketQuery(Collections.emptySet(), null, null, null, false,
+            Long.MIN_VALUE, Long.MAX_VALUE, null, Integer.MAX_VALUE);
+
+    private final Set<TicketStatus> statuses;
+    private final String assignee;
+    private final String assigneePrefix;
+    private final String department;
+    private final boolean unassigned;
+    private final long createdFrom;
+    private final long createdTo;
+    private final String text;
+    private final int limit;
+
+    private TicketQuery(Set<TicketStatus> statuses, String assignee, String assigneePrefix, String department,
+                        boolean unassigned, long createdFrom, long createdTo, String text, int limit) {
+        this.statuses = statuses;
+        this.assignee = assignee;
+        this.assigneePrefix = assigneePrefix;
+        this.department = department;
+        this.unassigned = unassigned;
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+        this.text = text;
+        this.limit = limit;
+    }
+
+    public static TicketQuery all() {
+        return ALL;
+    }
+
+    // Any of the given statuses
+    public TicketQuery withStatus(TicketStatus first, TicketStatus... more) {
+        Set<TicketStatus> wanted = EnumSet.of(first, more);
+        return new TicketQuery(Collections.unmodifiableSet(wanted), assignee, assigneePrefix, department, unassigned,
+                createdFrom, createdTo, text, limit);
+    }
+
+    public TicketQuery assignedTo(String userId) {
+        return new TicketQuery(statuses, userId, assigneePrefix, department, unassigned, createdFrom, createdTo, text, limit);
+    }
+
+    // For example "it." for every ticket assigned to someone in the it department
+    public TicketQuery assigneeStartsWith(String prefix) {
+        return new TicketQuery(statuses, assignee, prefix, department, unassigned, createdFrom, createdTo, text, limit);
+    }
+
+    // Tickets assigned to members of the department
+    public TicketQuery inDepartment(String department) {
+        return new TicketQuery(statuses, assignee, assigneePrefix, department, unassigned, createdFrom, createdTo,
+                text, limit);
+    }
+
+    public TicketQuery unassigned() {
+        return new TicketQuery(statuses, assignee, assigneePrefix, department, true, createdFrom, createdTo, text, limit);
+    }
+
+    // Inclusive, in epoch milliseconds
+    public TicketQuery createdAfter(long epochMillis) {
+        return new TicketQuery(statuses, assignee, assigneePrefix, department, unassigned, epochMillis, createdTo, text, limit);
+    }
+
+    // Exclusive, in epoch milliseconds
+    public TicketQuery createdBefore(long epochMillis) {
+        return new TicketQuery(statuses, assignee, assigneePrefix, department, unassigned, createdFrom, epochMillis, text, limit);
+    }
+
+    // Relative to the time this method is called
+    public TicketQuery createdWithinLast(long amount, TimeUnit unit) {
+        return createdAfter(System.currentTimeMillis() - unit.toMillis(amount));
+    }
+
+    // Search terms as in searchTickets: every word must start a word of the title or description
+    public TicketQuery matching(String text) {
+        return new TicketQuery(statuses, assignee, assigneePrefix, department, unassigned, createdFrom, createdTo, text, limit);
+    }
+
+    public TicketQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Invalid query limit: " + limit);
+        }
+        return new TicketQuery(statuses, assignee, assigneePrefix, department, unassigned, createdFrom, createdTo, text, limit);
+    }
+
+    // Empty when any status matches
+    public Set<TicketStatus> getStatuses() { return statuses; }
+    public String getAssignee() { return assignee; }
+    public String getAssigneePrefix() { return assigneePrefix; }
+    public String getDepartment() { return department; }
+    public boolean isUnassigned() { return unassigned; }
+    public long getCreatedFrom() { return createdFrom; }
+    public long getCreatedTo() { return createdTo; }
+    public String getText() { return text; }
+    public int getLimit() { return limit; }
+
+    public boolean hasCreationRange() {
+        return createdFrom != Long.MIN_VALUE || createdTo != Long.MAX_VALUE;
+    }
+}
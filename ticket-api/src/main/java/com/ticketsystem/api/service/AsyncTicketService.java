@@ -0,0 +1,82 @@
+package com.ticketsystem.api.service;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.ReplyDraft;
+import com.ticketsystem.api.model.TicketDraft;
+import com.ticketsystem.api.model.User;
+import com.ticketsystem.api.query.QueryPlan;
+import com.ticketsystem.api.query.TicketQuery;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link TicketService}. Every operation returns at
+ * once; its future completes with the result, or exceptionally with the error
+ * the blocking call would have thrown. Futures fail with
+ * {@link java.util.concurrent.RejectedExecutionException} when too many
+ * operations are already pending, so callers can back off.
+ */
+public interface AsyncTicketService {
+    // Creation and Updates
+    CompletableFuture<Ticket> createTicket(String title, String description);
+    CompletableFuture<Void> updateTicket(Ticket ticket);
+    CompletableFuture<Void> assignTicket(String ticketId, String userId);
+
+    // Version-checked updates, completing with the new version or a TicketConflictException
+    CompletableFuture<Long> updateTicket(Ticket ticket, long expectedVersion);
+    CompletableFuture<Long> assignTicket(String ticketId, String userId, long expectedVersion);
+
+    // Reply Management
+    CompletableFuture<Reply> addReply(String ticketId, String content, String parentReplyId);
+    CompletableFuture<Void> editReply(String ticketId, String replyId, String newContent);
+
+    // Status Management
+    CompletableFuture<Void> resolveTicket(String ticketId);
+
+    // Bulk Operations
+    CompletableFuture<BulkResult<Ticket>> createTickets(List<TicketDraft> drafts);
+    CompletableFuture<BulkResult<Reply>> addReplies(String ticketId, List<ReplyDraft> drafts);
+    CompletableFuture<BulkResult<Long>> assignTickets(Map<String, String> assignments);
+    CompletableFuture<BulkResult<Long>> resolveTickets(Collection<String> ticketIds);
+
+    // User Management
+    CompletableFuture<User> registerUser(User user);
+    CompletableFuture<User> getUser(String userId);
+
+    // Viewing Methods
+    CompletableFuture<Ticket> getTicket(String id);
+    CompletableFuture<List<Ticket>> getAllTickets();
+    CompletableFuture<List<Ticket>> getTicketsByStatus(String status);
+    CompletableFuture<List<Ticket>> getTicketsByAssignee(String userId);
+    CompletableFuture<Map<String, List<Ticket>>> getTicketsByDepartment();
+    CompletableFuture<List<Ticket>> searchTickets(String searchTerm);
+    CompletableFuture<List<Ticket>> searchTickets(String query, int offset, int limit);
+    CompletableFuture<List<Reply>> getTicketRepliesTree(String ticketId);
+    CompletableFuture<Map<String, Integer>> getTicketStatistics();
+    CompletableFuture<Map<String, Integer>> getOpenTicketCountsByAssignee();
+    CompletableFuture<Map<String, Integer>> getOpenTicketCountsByDepartment();
+    CompletableFuture<List<Ticket>> getRecentTickets(int limit);
+    CompletableFuture<List<Ticket>> getUnassignedTickets();
+    CompletableFuture<List<Ticket>> getOverdueTickets();
+    CompletableFuture<Map<String, Long>> getQueryCacheStatistics();
+
+    // Paged Views; streaming stays on TicketService, as a stream is already read lazily
+    CompletableFuture<TicketPage> page(TicketFilter filter, String afterId, int limit);
+
+    // Composable Queries
+    CompletableFuture<List<Ticket>> query(TicketQuery query);
+    CompletableFuture<QueryPlan> explain(TicketQuery query);
+
+    // Change Events
+    CompletableFuture<Long> getLastEventSequence();
+    CompletableFuture<List<TicketEvent>> getEventsAfter(long sequence, int limit);
+
+    // Snapshot Views
+    CompletableFuture<TicketSnapshot> getTicketSnapshot(String id);
+    CompletableFuture<List<TicketSnapshot>> getTicketSnapshots();
+}
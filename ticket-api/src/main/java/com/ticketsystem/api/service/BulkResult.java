@@ -0,0 +1,63 @@
+package com.ticketsystem.api.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of a bulk operation, one item per input in input order. A failed item
+ * carries the error message; the other items of the batch are applied regardless.
+ */
+public class BulkResult<T> {
+    private final List<Item<T>> items;
+
+    public BulkResult(int expectedSize) {
+        this.items = new ArrayList<>(expectedSize);
+    }
+
+    public void succeeded(String ticketId, T value) {
+        items.add(new Item<>(items.size(), ticketId, value, null));
+    }
+
+    public void failed(String ticketId, String error) {
+        items.add(new Item<>(items.size(), ticketId, null, error));
+    }
+
+    public List<Item<T>> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    // Values of the successful items, in input order
+    public List<T> getValues() {
+        return items.stream().filter(Item::isSuccess).map(Item::getValue).collect(Collectors.toList());
+    }
+
+    public int getSuccessCount() {
+        return (int) items.stream().filter(Item::isSuccess).count();
+    }
+
+    public int getFailureCount() {
+        return items.size() - getSuccessCount();
+    }
+
+    public static class Item<T> {
+        private final int index;
+        private final String ticketId;
+        private final T value;
+        private final String error;
+
+        Item(int index, String ticketId, T value, String error) {
+            this.index = index;
+            this.ticketId = ticketId;
+            this.value = value;
+            this.error = error;
+        }
+
+        public int getIndex() { return index; }
+        public String getTicketId() { return ticketId; }
+        public T getValue() { return value; }
+        public String getError() { return error; }
+        public boolean isSuccess() { return error == null; }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ticketsystem.api.service;
+
+/**
+ * Thrown by the version-checked writes of {@link TicketService} when the ticket
+ * was changed since the caller read it. Re-read the ticket and retry.
+ */
+public class TicketConflictException extends RuntimeException {
+    private final String ticketId;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    public TicketConflictException(String ticketId, long expectedVersion, long actualVersion) {
+        super("Ticket " + ticketId + " is at version " + actualVersion + ", expected " + expectedVersion);
+        this.ticketId = ticketId;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public String getTicketId() { return ticketId; }
+    public long getExpectedVersion() { return expectedVersion; }
+    public long getActualVersion() { return actualVersion; }
+}
@@ -0,0 +1,50 @@
+package com.ticketsystem.api.service;
+
+import com.ticketsystem.api.model.TicketStatus;
+
+/**
+ * Criteria for {@link TicketService#page} and {@link TicketService#streamTickets}.
+ * Immutable; each criterion narrows the filter further, and {@link #ALL}
+ * matches every ticket.
+ */
+public final class TicketFilter {
+    public static final TicketFilter ALL = new TicketFilter(null, null, null, false);
+
+    private final TicketStatus status;
+    private final String assignedTo;
+    private final String department;
+    private final boolean unassigned;
+
+    private TicketFilter(TicketStatus status, String assignedTo, String department, boolean unassigned) {
+        this.status = status;
+        this.assignedTo = assignedTo;
+        this.department = department;
+        this.unassigned = unassigned;
+    }
+
+    public TicketFilter withStatus(TicketStatus status) {
+        return new TicketFilter(status, assignedTo, department, unassigned);
+    }
+
+    // Throws IllegalArgumentException for names that are not a workflow state
+    public TicketFilter withStatus(String status) {
+        return withStatus(TicketStatus.parse(status));
+    }
+
+    public TicketFilter assignedTo(String userId) {
+        return new TicketFilter(status, userId, department, unassigned);
+    }
+
+    public TicketFilter inDepartment(String department) {
+        return new TicketFilter(status, assignedTo, department, unassigned);
+    }
+
+    public TicketFilter unassigned() {
+        return new TicketFilter(status, assignedTo, department, true);
+    }
+
+    public TicketStatus getStatus() { return status; }
+    public String getAssignedTo() { return assignedTo; }
+    public String getDepartment() { return department; }
+    public boolean isUnassigned() { return unassigned; }
+}
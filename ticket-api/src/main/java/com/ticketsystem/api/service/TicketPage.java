@@ -0,0 +1,23 @@
+package com.ticketsystem.api.service;
+
+import com.ticketsystem.api.model.Ticket;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a {@link TicketService#page} walk. Pass {@link #getNextCursor()}
+ * as afterId to fetch the next page; it is null on the last page.
+ */
+public class TicketPage {
+    private final List<Ticket> tickets;
+    private final String nextCursor;
+
+    public TicketPage(List<Ticket> tickets, String nextCursor) {
+        this.tickets = Collections.unmodifiableList(tickets);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Ticket> getTickets() { return tickets; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+}
@@ -1,9 +1,18 @@
 package com.ticketsystem.api.service;
 
+import com.ticketsystem.api.event.TicketEvent;
 import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketSnapshot;
 import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.ReplyDraft;
+import com.ticketsystem.api.model.TicketDraft;
+import com.ticketsystem.api.model.User;
+import com.ticketsystem.api.query.QueryPlan;
+import com.ticketsystem.api.query.TicketQuery;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface TicketService {
     // Creation and Updates
@@ -11,6 +20,11 @@ public interface TicketService {
     void updateTicket(Ticket ticket);
     void assignTicket(String ticketId, String userId);
 
+    // Version-checked updates: fail with TicketConflictException unless the ticket is still
+    // at expectedVersion, and return the new version
+    long updateTicket(Ticket ticket, long expectedVersion);
+    long assignTicket(String ticketId, String userId, long expectedVersion);
+
     // Reply Management
     Reply addReply(String ticketId, String content, String parentReplyId);
     void editReply(String ticketId, String replyId, String newContent);
@@ -18,6 +32,18 @@ public interface TicketService {
     // Status Management
     void resolveTicket(String ticketId);
 
+    // Bulk Operations: journaled and made durable once per batch, with one result per item
+    BulkResult<Ticket> createTickets(List<TicketDraft> drafts);
+    BulkResult<Reply> addReplies(String ticketId, List<ReplyDraft> drafts);
+    // Results hold the new ticket versions
+    BulkResult<Long> assignTickets(Map<String, String> assignments);
+    BulkResult<Long> resolveTickets(Collection<String> ticketIds);
+
+    // User Management: a registered user's department groups the tickets assigned to the user id;
+    // tickets of unregistered assignees fall back to the "dept.user" naming
+    User registerUser(User user);
+    User getUser(String userId);
+
     // Viewing Methods
     Ticket getTicket(String id);
     List<Ticket> getAllTickets();
@@ -25,9 +51,34 @@ public interface TicketService {
     List<Ticket> getTicketsByAssignee(String userId);
     Map<String, List<Ticket>> getTicketsByDepartment();
     List<Ticket> searchTickets(String searchTerm);
+    List<Ticket> searchTickets(String query, int offset, int limit);
     List<Reply> getTicketRepliesTree(String ticketId);
     Map<String, Integer> getTicketStatistics();
+    Map<String, Integer> getOpenTicketCountsByAssignee();
+    Map<String, Integer> getOpenTicketCountsByDepartment();
     List<Ticket> getRecentTickets(int limit);
     List<Ticket> getUnassignedTickets();
     List<Ticket> getOverdueTickets();
+
+    // Hits, misses, evictions and size of the cache behind the status, assignee, department and unassigned views
+    Map<String, Long> getQueryCacheStatistics();
+
+    // Paged and Streaming Views: tickets in creation order, read lazily from the indexes.
+    // afterId is the cursor of the previous page, or null for the first page
+    TicketPage page(TicketFilter filter, String afterId, int limit);
+    // Weakly consistent, like the views of a concurrent map
+    Stream<Ticket> streamTickets(TicketFilter filter);
+
+    // Composable Queries: matches in creation order; explain plans the query without running it
+    List<Ticket> query(TicketQuery query);
+    QueryPlan explain(TicketQuery query);
+
+    // Change Events: the newest sequence number, and the retained events after a sequence in order,
+    // for readers that poll instead of registering a TicketEventListener
+    long getLastEventSequence();
+    List<TicketEvent> getEventsAfter(long sequence, int limit);
+
+    // Snapshot Views (immutable, shared without copying)
+    TicketSnapshot getTicketSnapshot(String id);
+    List<TicketSnapshot> getTicketSnapshots();
 }
\ No newline at end of file
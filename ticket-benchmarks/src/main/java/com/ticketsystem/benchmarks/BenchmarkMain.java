@@ -0,0 +1,29 @@
+package com.ticketsystem.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs JMH with the given options and, unless a result format is given,
+ * writes the results as JSON to jmh-results/&lt;timestamp&gt;.json, so runs can
+ * be kept and diffed. Every other JMH option works as usual, e.g. "-t 4" for
+ * four threads or "-p tickets=10000" for one scale.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf") && !options.contains("-h") && !options.contains("-l")) {
+            Path results = Paths.get("jmh-results");
+            Files.createDirectories(results);
+            String name = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+            options.addAll(Arrays.asList("-rf", "json", "-rff", results.resolve(name).toString()));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
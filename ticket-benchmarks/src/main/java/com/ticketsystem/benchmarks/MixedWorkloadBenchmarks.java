@@ -0,0 +1,104 @@
+package com.ticketsystem.benchmarks;
+
+import com.ticketsystem.api.model.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Readers and writers running at the same time on one service, in three
+ * read/write thread ratios. JMH reports every group as a whole and per
+ * method, so the cost writers impose on readers shows up directly.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MixedWorkloadBenchmarks {
+
+    // 7 readers : 1 writer, e.g. agents watching dashboards
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(7)
+    public Object readMostlyRead(TicketServiceState state) {
+        return read(state);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public String readMostlyWrite(TicketServiceState state) {
+        return write(state);
+    }
+
+    // 1 : 1
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(2)
+    public Object balancedRead(TicketServiceState state) {
+        return read(state);
+    }
+
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(2)
+    public String balancedWrite(TicketServiceState state) {
+        return write(state);
+    }
+
+    // 1 : 3, e.g. an import or an outage flooding the system with tickets
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(1)
+    public Object writeHeavyRead(TicketServiceState state) {
+        return read(state);
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(3)
+    public String writeHeavyWrite(TicketServiceState state) {
+        return write(state);
+    }
+
+    // Half point lookups, the rest assignee views and searches
+    private static Object read(TicketServiceState state) {
+        switch (ThreadLocalRandom.current().nextInt(4)) {
+            case 0:
+                return state.service.getTicketsByAssignee(state.randomAgent());
+            case 1:
+                return state.service.searchTickets(state.randomWord(), 0, 20);
+            default:
+                return state.service.getTicket(state.randomTicketId());
+        }
+    }
+
+    // Creation, assignment, a reply or resolution, picked at random
+    private static String write(TicketServiceState state) {
+        String id = state.randomTicketId();
+        switch (ThreadLocalRandom.current().nextInt(4)) {
+            case 0:
+                Ticket ticket = state.service.createTicket("Mixed workload", "Created by a benchmark");
+                return ticket.getId();
+            case 1:
+                state.service.assignTicket(id, state.randomAgent());
+                return id;
+            case 2:
+                state.service.addReply(id, "Mixed workload reply", null);
+                return id;
+            default:
+                state.service.resolveTicket(id);
+                return id;
+        }
+    }
+}
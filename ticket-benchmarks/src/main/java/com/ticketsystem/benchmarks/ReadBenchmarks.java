@@ -0,0 +1,160 @@
+package com.ticketsystem.benchmarks;
+
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketStatus;
+import com.ticketsystem.api.query.QueryPlan;
+import com.ticketsystem.api.query.TicketQuery;
+import com.ticketsystem.api.service.TicketFilter;
+import com.ticketsystem.api.service.TicketPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Every read-only TicketService operation against a populated service. Views
+ * that return whole result sets scale with the ticket count; the point lookups
+ * and counters should not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ReadBenchmarks {
+    private static final TicketQuery OPEN_IT_LAST_DAY = TicketQuery.all()
+        .withStatus(TicketStatus.OPEN)
+        .assigneeStartsWith("it.")
+        .createdWithinLast(1, TimeUnit.DAYS)
+        .limit(50);
+
+    @Benchmark
+    public Ticket getTicket(TicketServiceState state) {
+        return state.service.getTicket(state.randomTicketId());
+    }
+
+    @Benchmark
+    public Object getTicketSnapshot(TicketServiceState state) {
+        return state.service.getTicketSnapshot(state.randomTicketId());
+    }
+
+    @Benchmark
+    public Object getUser(TicketServiceState state) {
+        return state.service.getUser(state.randomAgent());
+    }
+
+    @Benchmark
+    public List<Ticket> getAllTickets(TicketServiceState state) {
+        return state.service.getAllTickets();
+    }
+
+    @Benchmark
+    public Object getTicketSnapshots(TicketServiceState state) {
+        return state.service.getTicketSnapshots();
+    }
+
+    @Benchmark
+    public List<Ticket> getTicketsByStatus(TicketServiceState state) {
+        return state.service.getTicketsByStatus("OPEN");
+    }
+
+    @Benchmark
+    public List<Ticket> getTicketsByAssignee(TicketServiceState state) {
+        return state.service.getTicketsByAssignee(state.randomAgent());
+    }
+
+    @Benchmark
+    public Map<String, List<Ticket>> getTicketsByDepartment(TicketServiceState state) {
+        return state.service.getTicketsByDepartment();
+    }
+
+    @Benchmark
+    public List<Ticket> getUnassignedTickets(TicketServiceState state) {
+        return state.service.getUnassignedTickets();
+    }
+
+    @Benchmark
+    public List<Ticket> getOverdueTickets(TicketServiceState state) {
+        return state.service.getOverdueTickets();
+    }
+
+    @Benchmark
+    public List<Ticket> getRecentTickets(TicketServiceState state) {
+        return state.service.getRecentTickets(20);
+    }
+
+    @Benchmark
+    public List<Ticket> searchTickets(TicketServiceState state) {
+        return state.service.searchTickets(state.randomWord() + " " + state.randomWord());
+    }
+
+    @Benchmark
+    public List<Ticket> searchTicketsPage(TicketServiceState state) {
+        return state.service.searchTickets(state.randomWord(), 0, 20);
+    }
+
+    @Benchmark
+    public Object getTicketRepliesTree(TicketServiceState state) {
+        return state.service.getTicketRepliesTree(state.repliedTicketIds[0]);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getTicketStatistics(TicketServiceState state) {
+        return state.service.getTicketStatistics();
+    }
+
+    @Benchmark
+    public Map<String, Integer> getOpenTicketCountsByAssignee(TicketServiceState state) {
+        return state.service.getOpenTicketCountsByAssignee();
+    }
+
+    @Benchmark
+    public Map<String, Integer> getOpenTicketCountsByDepartment(TicketServiceState state) {
+        return state.service.getOpenTicketCountsByDepartment();
+    }
+
+    @Benchmark
+    public Map<String, Long> getQueryCacheStatistics(TicketServiceState state) {
+        return state.service.getQueryCacheStatistics();
+    }
+
+    @Benchmark
+    public TicketPage page(TicketServiceState state) {
+        return state.service.page(TicketFilter.ALL.withStatus(TicketStatus.OPEN), null, 50);
+    }
+
+    @Benchmark
+    public List<Ticket> streamTickets(TicketServiceState state) {
+        return state.service.streamTickets(TicketFilter.ALL.assignedTo(state.randomAgent()))
+            .limit(50)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Ticket> query(TicketServiceState state) {
+        return state.service.query(OPEN_IT_LAST_DAY);
+    }
+
+    @Benchmark
+    public QueryPlan explain(TicketServiceState state) {
+        return state.service.explain(OPEN_IT_LAST_DAY.matching(state.randomWord()));
+    }
+
+    @Benchmark
+    public long getLastEventSequence(TicketServiceState state) {
+        return state.service.getLastEventSequence();
+    }
+
+    @Benchmark
+    public Object getEventsAfter(TicketServiceState state) {
+        return state.service.getEventsAfter(state.service.getLastEventSequence() - 100, 100);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ticketsystem.benchmarks;
+
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.core.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reply operations on one ticket whose thread is either deep (every reply
+ * answers the previous one) or wide (every reply answers the first).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplyTreeBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class ThreadState {
+        @Param({"deep", "wide"})
+        public String shape;
+
+        @Param({"100", "1000"})
+        public int replies;
+
+        TicketServiceImpl service;
+        String ticketId;
+        String[] replyIds;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            service = new TicketServiceImpl();
+            ticketId = service.createTicket("Shared drive unreachable", "Whole floor affected").getId();
+            replyIds = new String[replies];
+            String parent = null;
+            for (int i = 0; i < replies; i++) {
+                replyIds[i] = service.addReply(ticketId, "Reply " + i, parent).getId();
+                parent = "deep".equals(shape) ? replyIds[i] : replyIds[0];
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            service.close();
+        }
+
+        String randomReplyId() {
+            return replyIds[ThreadLocalRandom.current().nextInt(replyIds.length)];
+        }
+    }
+
+    @Benchmark
+    public List<Reply> getTicketRepliesTree(ThreadState state) {
+        return state.service.getTicketRepliesTree(state.ticketId);
+    }
+
+    @Benchmark
+    public Ticket getTicketWithReplies(ThreadState state) {
+        return state.service.getTicket(state.ticketId);
+    }
+
+    @Benchmark
+    public String editReply(ThreadState state) {
+        String replyId = state.randomReplyId();
+        state.service.editReply(state.ticketId, replyId, "Edited by a benchmark");
+        return replyId;
+    }
+
+    // Answers a reply inside the existing tree; the thread grows over the trial
+    @Benchmark
+    public Reply addNestedReply(ThreadState state) {
+        return state.service.addReply(state.ticketId, "Nested reply", state.randomReplyId());
+    }
+}
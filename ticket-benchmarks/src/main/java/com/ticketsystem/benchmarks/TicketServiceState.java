@@ -0,0 +1,132 @@
+package com.ticketsystem.benchmarks;
+
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.ReplyDraft;
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketDraft;
+import com.ticketsystem.api.model.User;
+import com.ticketsystem.core.impl.TicketServiceImpl;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An in-memory TicketServiceImpl filled with a realistic mix of tickets:
+ * 70% assigned across 50 registered agents in 5 departments, a third
+ * resolved, and one ticket in ten with a short reply thread. Titles and
+ * descriptions draw from a small vocabulary, so searches have hits at every
+ * scale. Shared by all benchmark threads.
+ */
+@State(Scope.Benchmark)
+public class TicketServiceState {
+    static final String[] DEPARTMENTS = {"it", "hr", "facilities", "finance", "network"};
+    static final String[] WORDS = {"printer", "network", "vpn", "email", "laptop", "password", "badge",
+        "monitor", "server", "database", "outage", "slow", "login", "license", "backup", "phone"};
+    private static final int AGENTS = 50;
+    private static final int BATCH = 10_000;
+
+    @Param({"10000", "1000000"})
+    public int tickets;
+
+    // Size of the view cache; pass -p queryCacheSize=0 to measure the uncached views
+    @Param({"100000"})
+    public long queryCacheSize;
+
+    public TicketServiceImpl service;
+    public String[] ticketIds;
+    public String[] agents;
+    // Tickets with replies, and one reply of each
+    public String[] repliedTicketIds;
+    public String[] replyIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new TicketServiceImpl();
+        service.setQueryCacheSize(queryCacheSize);
+        agents = new String[AGENTS];
+        for (int i = 0; i < AGENTS; i++) {
+            String department = DEPARTMENTS[i % DEPARTMENTS.length];
+            agents[i] = department + ".agent" + i;
+            User user = new User();
+            user.setId(agents[i]);
+            user.setUsername(agents[i]);
+            user.setDepartment(department);
+            service.registerUser(user);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ticketIds = new String[tickets];
+        List<String> toResolve = new ArrayList<>();
+        for (int start = 0; start < tickets; start += BATCH) {
+            List<TicketDraft> drafts = new ArrayList<>(BATCH);
+            for (int i = start; i < Math.min(tickets, start + BATCH); i++) {
+                TicketDraft draft = new TicketDraft(title(random), sentence(random, 12));
+                if (random.nextInt(10) < 7) {
+                    draft.setAssignedTo(agents[random.nextInt(AGENTS)]);
+                }
+                drafts.add(draft);
+            }
+            List<Ticket> created = service.createTickets(drafts).getValues();
+            for (int i = 0; i < created.size(); i++) {
+                ticketIds[start + i] = created.get(i).getId();
+                if ((start + i) % 3 == 0) {
+                    toResolve.add(created.get(i).getId());
+                }
+            }
+            service.resolveTickets(toResolve);
+            toResolve.clear();
+        }
+
+        int replied = Math.max(1, tickets / 10);
+        repliedTicketIds = new String[replied];
+        replyIds = new String[replied];
+        for (int i = 0; i < replied; i++) {
+            String ticketId = ticketIds[i * (tickets / replied)];
+            List<Reply> replies = service.addReplies(ticketId, Arrays.asList(
+                new ReplyDraft(sentence(random, 8), null),
+                new ReplyDraft(sentence(random, 8), null))).getValues();
+            repliedTicketIds[i] = ticketId;
+            replyIds[i] = replies.get(0).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        service.close();
+    }
+
+    public String randomTicketId() {
+        return ticketIds[ThreadLocalRandom.current().nextInt(ticketIds.length)];
+    }
+
+    public String randomAgent() {
+        return agents[ThreadLocalRandom.current().nextInt(agents.length)];
+    }
+
+    public String randomWord() {
+        return WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+    }
+
+    static String title(ThreadLocalRandom random) {
+        return sentence(random, 4);
+    }
+
+    static String sentence(ThreadLocalRandom random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
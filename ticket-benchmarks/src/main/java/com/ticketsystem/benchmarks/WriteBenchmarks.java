@@ -0,0 +1,144 @@
+package com.ticketsystem.benchmarks;
+
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.ReplyDraft;
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketDraft;
+import com.ticketsystem.api.model.User;
+import com.ticketsystem.api.service.BulkResult;
+import com.ticketsystem.api.service.TicketConflictException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every mutating TicketService operation, on random tickets of a populated
+ * service. Created tickets and replies accumulate over a trial, as they would
+ * in production; bulk operations work on batches of 100.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class WriteBenchmarks {
+    private static final int BATCH = 100;
+
+    @Benchmark
+    public Ticket createTicket(TicketServiceState state) {
+        return state.service.createTicket(TicketServiceState.title(ThreadLocalRandom.current()), "Created by a benchmark");
+    }
+
+    @Benchmark
+    public Ticket updateTicket(TicketServiceState state) {
+        Ticket ticket = state.service.getTicket(state.randomTicketId());
+        ticket.setDescription(TicketServiceState.sentence(ThreadLocalRandom.current(), 12));
+        state.service.updateTicket(ticket);
+        return ticket;
+    }
+
+    @Benchmark
+    public long updateTicketVersioned(TicketServiceState state) {
+        String id = state.randomTicketId();
+        long version = state.service.getTicketSnapshot(id).getVersion();
+        Ticket ticket = state.service.getTicket(id);
+        ticket.setTitle(TicketServiceState.title(ThreadLocalRandom.current()));
+        try {
+            return state.service.updateTicket(ticket, version);
+        } catch (TicketConflictException e) {
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public String assignTicket(TicketServiceState state) {
+        String id = state.randomTicketId();
+        state.service.assignTicket(id, state.randomAgent());
+        return id;
+    }
+
+    @Benchmark
+    public long assignTicketVersioned(TicketServiceState state) {
+        String id = state.randomTicketId();
+        try {
+            return state.service.assignTicket(id, state.randomAgent(), state.service.getTicketSnapshot(id).getVersion());
+        } catch (TicketConflictException e) {
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public String resolveTicket(TicketServiceState state) {
+        String id = state.randomTicketId();
+        state.service.resolveTicket(id);
+        return id;
+    }
+
+    @Benchmark
+    public Reply addReply(TicketServiceState state) {
+        return state.service.addReply(state.randomTicketId(), "Looking into it", null);
+    }
+
+    @Benchmark
+    public int editReply(TicketServiceState state) {
+        int i = ThreadLocalRandom.current().nextInt(state.replyIds.length);
+        state.service.editReply(state.repliedTicketIds[i], state.replyIds[i], "Edited by a benchmark");
+        return i;
+    }
+
+    @Benchmark
+    public User registerUser(TicketServiceState state) {
+        User user = new User();
+        user.setId(state.randomAgent());
+        user.setDepartment(TicketServiceState.DEPARTMENTS[ThreadLocalRandom.current().nextInt(TicketServiceState.DEPARTMENTS.length)]);
+        return state.service.registerUser(user);
+    }
+
+    @Benchmark
+    public BulkResult<Ticket> createTickets(TicketServiceState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<TicketDraft> drafts = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            drafts.add(new TicketDraft(TicketServiceState.title(random), "Created by a benchmark"));
+        }
+        return state.service.createTickets(drafts);
+    }
+
+    @Benchmark
+    public BulkResult<Reply> addReplies(TicketServiceState state) {
+        List<ReplyDraft> drafts = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            drafts.add(new ReplyDraft("Reply " + i, null));
+        }
+        return state.service.addReplies(state.randomTicketId(), drafts);
+    }
+
+    @Benchmark
+    public BulkResult<Long> assignTickets(TicketServiceState state) {
+        Map<String, String> assignments = new HashMap<>();
+        for (int i = 0; i < BATCH; i++) {
+            assignments.put(state.randomTicketId(), state.randomAgent());
+        }
+        return state.service.assignTickets(assignments);
+    }
+
+    @Benchmark
+    public BulkResult<Long> resolveTickets(TicketServiceState state) {
+        List<String> ids = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            ids.add(state.randomTicketId());
+        }
+        return state.service.resolveTickets(ids);
+    }
+}
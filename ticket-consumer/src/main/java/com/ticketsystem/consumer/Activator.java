@@ -2,31 +2,23 @@ package com.ticketsystem.consumer;
 
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
-import org.osgi.framework.ServiceReference;
-import com.ticketsystem.api.service.TicketService;
 
 public class Activator implements BundleActivator {
-    private ServiceReference ticketServiceReference;
+    private TicketServiceBinder ticketServices;
 
     @Override
     public void start(BundleContext context) throws Exception {
-        ServiceReference ticketServiceReference = context.getServiceReference(TicketService.class.getName());
-        if (ticketServiceReference != null) {
-            TicketService ticketService = (TicketService) context.getService(ticketServiceReference);
-            TicketConsumer consumer = new TicketConsumer(ticketService);
-
-            // Run all tests including new ones
-            consumer.runAllTests();
-
-            // Demonstrate all features
-            consumer.demonstrateAllFeatures();
-        }
+        // Tests, demo and the optional load run (ticket.load.duration.seconds) run on the consumer's
+        // thread whenever a TicketService is bound, so start returns right away
+        ticketServices = new TicketServiceBinder(context, WorkloadConfig.fromProperties(context::getProperty));
+        ticketServices.open();
     }
 
     @Override
     public void stop(BundleContext context) throws Exception {
-        if (ticketServiceReference != null) {
-            context.ungetService(ticketServiceReference);
+        if (ticketServices != null) {
+            ticketServices.close();
+            ticketServices = null;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,42 @@
 package com.ticketsystem.consumer;
 
+import com.ticketsystem.api.event.TicketEvent;
 import com.ticketsystem.api.model.Ticket;
 import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.ReplyDraft;
+import com.ticketsystem.api.model.TicketDraft;
+import com.ticketsystem.api.model.TicketStatus;
+import com.ticketsystem.api.model.User;
+import com.ticketsystem.api.query.QueryPlan;
+import com.ticketsystem.api.query.TicketQuery;
+import com.ticketsystem.api.service.AsyncTicketService;
+import com.ticketsystem.api.service.BulkResult;
+import com.ticketsystem.api.service.TicketConflictException;
+import com.ticketsystem.api.service.TicketFilter;
+import com.ticketsystem.api.service.TicketPage;
 import com.ticketsystem.api.service.TicketService;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TicketConsumer {
     private final TicketService ticketService;
+    private final AsyncTicketService asyncTicketService;
     private final Map<String, TestResult> testResults = new HashMap<>();
+    // Part of the assignee names the suite uses, so it can run again against a service holding an earlier run's tickets
+    private final String runId = Long.toString(System.nanoTime(), 36);
 
     public TicketConsumer(TicketService ticketService) {
+        this(ticketService, null);
+    }
+
+    // The async tests are skipped when asyncTicketService is null
+    public TicketConsumer(TicketService ticketService, AsyncTicketService asyncTicketService) {
         this.ticketService = ticketService;
+        this.asyncTicketService = asyncTicketService;
     }
 
     public static class TestResult {
@@ -33,6 +59,8 @@ public class TicketConsumer {
         // Advanced Operations Tests
         testReplyTreeManagement();
         testTicketUpdates();
+        testOptimisticConcurrency();
+        testBulkOperations();
 
         // Viewing and Search Tests
         testTicketRetrieval();
@@ -40,6 +68,22 @@ public class TicketConsumer {
         testAssigneeFiltering();
         testDepartmentGrouping();
         testSearchFunctionality();
+        testPagination();
+        testComposableQueries();
+        testUserDepartments();
+        testChangeEvents();
+        testQueryCache();
+
+        // Error Handling Tests
+        testEdgeCases();
+
+        // Concurrency Tests
+        testConcurrentReplies();
+        testConcurrentOperations();
+        testWorkloadDriver();
+        if (asyncTicketService != null) {
+            testAsyncPipelining();
+        }
 
         printTestResults();
     }
@@ -244,6 +288,344 @@ public class TicketConsumer {
         }
     }
 
+    private void testOptimisticConcurrency() {
+        long startTime = System.currentTimeMillis();
+        try {
+            Ticket ticket = ticketService.createTicket("Versioned Ticket", "Two agents editing");
+            long readVersion = ticket.getVersion();
+
+            // First agent wins, second agent still holds the stale version
+            ticket.setTitle("Edited by agent 1");
+            long newVersion = ticketService.updateTicket(ticket, readVersion);
+
+            boolean conflictDetected = false;
+            try {
+                ticketService.assignTicket(ticket.getId(), "agent2", readVersion);
+            } catch (TicketConflictException e) {
+                conflictDetected = e.getActualVersion() == newVersion;
+            }
+
+            Ticket current = ticketService.getTicket(ticket.getId());
+            boolean success = conflictDetected &&
+                    newVersion == readVersion + 1 &&
+                    current.getAssignedTo() == null &&
+                    "Edited by agent 1".equals(current.getTitle());
+
+            testResults.put("optimisticConcurrency", new TestResult(
+                    "Optimistic Concurrency",
+                    success,
+                    success ? "Stale write rejected with a version conflict" : "Failed to detect conflicting update",
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("optimisticConcurrency", new TestResult(
+                    "Optimistic Concurrency",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
+    private void testBulkOperations() {
+        long startTime = System.currentTimeMillis();
+        try {
+            BulkResult<Ticket> created = ticketService.createTickets(Arrays.asList(
+                    new TicketDraft("Bulk Ticket 1", "First of a batch"),
+                    null,
+                    new TicketDraft("Bulk Ticket 2", "Second of a batch")));
+            List<Ticket> tickets = created.getValues();
+            String first = tickets.get(0).getId();
+            String second = tickets.get(1).getId();
+
+            BulkResult<Reply> replies = ticketService.addReplies(first, Arrays.asList(
+                    new ReplyDraft("Bulk root reply", null),
+                    new ReplyDraft("Bulk reply 2", null)));
+
+            Map<String, String> assignments = new LinkedHashMap<>();
+            assignments.put(first, "it.bulk");
+            assignments.put("missing-ticket", "it.bulk");
+            BulkResult<Long> assigned = ticketService.assignTickets(assignments);
+            BulkResult<Long> resolved = ticketService.resolveTickets(Arrays.asList(first, second));
+
+            boolean success = created.getSuccessCount() == 2 &&
+                    !created.getItems().get(1).isSuccess() &&
+                    replies.getSuccessCount() == 2 &&
+                    ticketService.getTicketRepliesTree(first).size() == 2 &&
+                    assigned.getSuccessCount() == 1 && assigned.getFailureCount() == 1 &&
+                    resolved.getSuccessCount() == 2 &&
+                    "it.bulk".equals(ticketService.getTicket(first).getAssignedTo()) &&
+                    "RESOLVED".equals(ticketService.getTicket(second).getStatus());
+
+            testResults.put("bulkOperations", new TestResult(
+                    "Bulk Operations",
+                    success,
+                    success ? "Batches applied with per-item results" : "Bulk operations returned wrong results",
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("bulkOperations", new TestResult(
+                    "Bulk Operations",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
+    private void testAsyncPipelining() {
+        long startTime = System.currentTimeMillis();
+        try {
+            // Issue every create before waiting on any of them, then chain a reply onto each
+            List<CompletableFuture<Reply>> pipelines = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                pipelines.add(asyncTicketService.createTicket("Async Ticket " + i, "Pipelined creation")
+                        .thenCompose(ticket -> asyncTicketService.addReply(ticket.getId(), "Async reply", null)));
+            }
+            CompletableFuture.allOf(pipelines.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            boolean failedAsExpected = false;
+            try {
+                asyncTicketService.resolveTicket("missing-ticket").get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                failedAsExpected = e.getCause() instanceof IllegalArgumentException;
+            }
+
+            boolean success = failedAsExpected &&
+                    pipelines.stream().allMatch(f -> f.join().getId() != null) &&
+                    ticketService.searchTickets("Pipelined").size() >= 50;
+
+            testResults.put("asyncPipelining", new TestResult(
+                    "Async Pipelining",
+                    success,
+                    success ? "Pipelined 50 async create and reply chains" : "Async operations returned wrong results",
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("asyncPipelining", new TestResult(
+                    "Async Pipelining",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
+    private void testPagination() {
+        long startTime = System.currentTimeMillis();
+        try {
+            List<String> created = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                Ticket ticket = ticketService.createTicket("Paged Ticket " + i, "Pagination");
+                ticketService.assignTicket(ticket.getId(), "paging" + runId + ".agent");
+                created.add(ticket.getId());
+            }
+            ticketService.resolveTicket(created.get(3));
+
+            // Walk every page of the agent's tickets, 10 at a time
+            TicketFilter filter = TicketFilter.ALL.assignedTo("paging" + runId + ".agent");
+            List<String> paged = new ArrayList<>();
+            int pages = 0;
+            String cursor = null;
+            do {
+                TicketPage page = ticketService.page(filter, cursor, 10);
+                page.getTickets().forEach(ticket -> paged.add(ticket.getId()));
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+
+            long streamedOpen = ticketService.streamTickets(filter.withStatus("OPEN")).count();
+            long streamedDepartment = ticketService.streamTickets(TicketFilter.ALL.inDepartment("paging" + runId)).count();
+
+            // Same millisecond creations are ordered by id, which need not match the loop order
+            boolean success = paged.size() == created.size() &&
+                    new HashSet<>(paged).equals(new HashSet<>(created)) &&
+                    pages == 3 &&
+                    streamedOpen == 24 &&
+                    streamedDepartment == 25;
+
+            testResults.put("pagination", new TestResult(
+                    "Pagination and Streaming",
+                    success,
+                    success ? "Paged 25 tickets in creation order and streamed filtered views"
+                            : "Pages or streams returned wrong tickets",
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("pagination", new TestResult(
+                    "Pagination and Streaming",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
+    private void testUserDepartments() {
+        long startTime = System.currentTimeMillis();
+        try {
+            User user = new User();
+            user.setId("jdoe");
+            user.setUsername("jdoe");
+            user.setDepartment("network");
+            ticketService.registerUser(user);
+
+            Ticket ticket = ticketService.createTicket("Switch port flapping", "Port 12 goes down hourly");
+            ticketService.assignTicket(ticket.getId(), "jdoe");
+            boolean grouped = containsTicket(ticketService.getTicketsByDepartment().get("network"), ticket.getId()) &&
+                    ticketService.getOpenTicketCountsByDepartment().getOrDefault("network", 0) > 0 &&
+                    !ticketService.getTicketsByDepartment().containsKey("jdoe") &&
+                    ticketService.query(TicketQuery.all().inDepartment("network")).stream()
+                            .anyMatch(t -> t.getId().equals(ticket.getId()));
+
+            // Moving the user moves the tickets without touching them
+            user.setDepartment("security");
+            ticketService.registerUser(user);
+            Map<String, List<Ticket>> byDepartment = ticketService.getTicketsByDepartment();
+            boolean moved = containsTicket(byDepartment.get("security"), ticket.getId()) &&
+                    !containsTicket(byDepartment.get("network"), ticket.getId()) &&
+                    "security".equals(ticketService.getUser("jdoe").getDepartment());
+
+            boolean success = grouped && moved;
+            testResults.put("userDepartments", new TestResult(
+                    "User Departments",
+                    success,
+                    success ? "Tickets grouped by the assignee's registered department" : "Department grouping is wrong",
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("userDepartments", new TestResult(
+                    "User Departments",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
+    private void testChangeEvents() {
+        long startTime = System.currentTimeMillis();
+        try {
+            long before = ticketService.getLastEventSequence();
+            Ticket ticket = ticketService.createTicket("Badge reader offline", "Door 3 rejects all badges");
+            ticketService.assignTicket(ticket.getId(), "facilities.tech");
+            Reply reply = ticketService.addReply(ticket.getId(), "Rebooting the controller", null);
+            ticketService.editReply(ticket.getId(), reply.getId(), "Controller replaced");
+            ticketService.resolveTicket(ticket.getId());
+
+            List<TicketEvent> events = ticketService.getEventsAfter(before, 100);
+            List<TicketEvent.Type> types = new ArrayList<>();
+            long previous = before;
+            boolean ordered = true;
+            for (TicketEvent event : events) {
+                ordered &= event.getSequence() > previous;
+                previous = event.getSequence();
+                if (event.getTicketId().equals(ticket.getId())) {
+                    types.add(event.getType());
+                }
+            }
+
+            boolean success = ordered &&
+                    types.equals(Arrays.asList(TicketEvent.Type.CREATED, TicketEvent.Type.ASSIGNED,
+                            TicketEvent.Type.REPLIED, TicketEvent.Type.EDITED, TicketEvent.Type.RESOLVED)) &&
+                    ticketService.getLastEventSequence() >= before + 5;
+            testResults.put("changeEvents", new TestResult(
+                    "Change Events",
+                    success,
+                    success ? "Events " + (before + 1) + ".." + previous + " in order: " + types : "Unexpected events: " + events,
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("changeEvents", new TestResult(
+                    "Change Events",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
+    private void testQueryCache() {
+        long startTime = System.currentTimeMillis();
+        try {
+            Map<String, Long> before = ticketService.getQueryCacheStatistics();
+            ticketService.getTicketsByStatus("OPEN");
+            ticketService.getTicketsByStatus("OPEN");
+            Map<String, Long> repeated = ticketService.getQueryCacheStatistics();
+
+            // A new ticket must show up in the cached view straight away
+            Ticket ticket = ticketService.createTicket("Projector flickers", "Room 204");
+            boolean visible = containsTicket(ticketService.getTicketsByStatus("OPEN"), ticket.getId());
+            ticketService.resolveTicket(ticket.getId());
+            boolean moved = !containsTicket(ticketService.getTicketsByStatus("OPEN"), ticket.getId()) &&
+                    containsTicket(ticketService.getTicketsByStatus("RESOLVED"), ticket.getId());
+            Map<String, Long> after = ticketService.getQueryCacheStatistics();
+
+            boolean success = visible && moved &&
+                    repeated.get("hits") > before.get("hits") &&
+                    after.get("invalidations") > repeated.get("invalidations");
+            testResults.put("queryCache", new TestResult(
+                    "Query Cache",
+                    success,
+                    success ? "Cached views invalidated by writes: " + after : "Stale or uncached views: " + after,
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("queryCache", new TestResult(
+                    "Query Cache",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
+    private static boolean containsTicket(List<Ticket> tickets, String ticketId) {
+        return tickets != null && tickets.stream().anyMatch(t -> t.getId().equals(ticketId));
+    }
+
+    private void testComposableQueries() {
+        long startTime = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < 6; i++) {
+                Ticket ticket = ticketService.createTicket("Zephyr VPN drops " + i, "Tunnel resets");
+                ticketService.assignTicket(ticket.getId(), (i % 2 == 0 ? "qa" : "ops") + runId + ".agent" + i);
+                if (i == 0) {
+                    ticketService.resolveTicket(ticket.getId());
+                }
+            }
+
+            // Open, assigned to qa.*, created in the last hour and matching "zephyr vpn"
+            TicketQuery query = TicketQuery.all()
+                    .withStatus(TicketStatus.OPEN)
+                    .assigneeStartsWith("qa" + runId + ".")
+                    .createdWithinLast(1, TimeUnit.HOURS)
+                    .matching("zephyr vpn");
+            List<Ticket> matches = ticketService.query(query);
+            QueryPlan plan = ticketService.explain(query);
+
+            boolean success = matches.size() == 2 &&
+                    matches.stream().allMatch(t -> t.getAssignedTo().startsWith("qa" + runId + ".") && "OPEN".equals(t.getStatus())) &&
+                    ticketService.query(query.limit(1)).size() == 1 &&
+                    plan.getDrivingIndex() != null &&
+                    plan.getSteps().get(0).startsWith("Drive:");
+
+            testResults.put("composableQueries", new TestResult(
+                    "Composable Queries",
+                    success,
+                    success ? "Planned via " + plan.getDrivingIndex() : "Query returned wrong tickets",
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("composableQueries", new TestResult(
+                    "Composable Queries",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
     private void testDepartmentGrouping() {
         long startTime = System.currentTimeMillis();
         try {
@@ -275,6 +657,107 @@ public class TicketConsumer {
         }
     }
 
+    private void testConcurrentReplies() {
+        long startTime = System.currentTimeMillis();
+        try {
+            Ticket ticket = ticketService.createTicket("Reply Stress Test", "Many concurrent writers");
+            Reply root = ticketService.addReply(ticket.getId(), "Root", null);
+
+            int writers = 64;
+            int repliesPerWriter = 200;
+            CountDownLatch startGate = new CountDownLatch(1);
+            AtomicInteger failures = new AtomicInteger();
+            Thread[] threads = new Thread[writers];
+            for (int i = 0; i < writers; i++) {
+                threads[i] = new Thread(() -> {
+                    try {
+                        startGate.await();
+                        for (int j = 0; j < repliesPerWriter; j++) {
+                            // Alternate between top-level replies and replies under the shared root
+                            ticketService.addReply(ticket.getId(), "Reply " + j, j % 2 == 0 ? null : root.getId());
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                });
+                threads[i].start();
+            }
+            startGate.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            int expected = writers * repliesPerWriter + 1;
+            int stored = ticketService.getTicket(ticket.getId()).getReplies().size();
+            List<Reply> tree = ticketService.getTicketRepliesTree(ticket.getId());
+            int inTree = countReplies(tree);
+
+            boolean success = failures.get() == 0 && stored == expected && inTree == expected;
+
+            testResults.put("concurrentReplies", new TestResult(
+                    "Concurrent Replies",
+                    success,
+                    success ? "No replies lost with " + writers + " concurrent writers"
+                            : String.format("Expected %d replies, stored %d, in tree %d, failed writers %d",
+                                    expected, stored, inTree, failures.get()),
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("concurrentReplies", new TestResult(
+                    "Concurrent Replies",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
+    private void testWorkloadDriver() {
+        long startTime = System.currentTimeMillis();
+        try {
+            WorkloadConfig config = new WorkloadConfig()
+                    .duration(500, TimeUnit.MILLISECONDS)
+                    .warmup(0, TimeUnit.MILLISECONDS)
+                    .threads(2)
+                    .rate(400)
+                    .seedTickets(50)
+                    .reportInterval(0, TimeUnit.MILLISECONDS)
+                    .reportFile(null);
+            WorkloadDriver.Stats total = new WorkloadDriver(ticketService, config).run().getTotal();
+
+            // Every call is timed from its intended start, which is never after the call itself
+            boolean corrected = true;
+            for (WorkloadConfig.Operation operation : WorkloadConfig.Operation.values()) {
+                corrected &= total.response(operation).percentile(0.99) >= total.service(operation).percentile(0.99);
+            }
+            boolean success = total.count() > 0 && total.errors() == 0 && corrected;
+
+            testResults.put("workloadDriver", new TestResult(
+                    "Workload Driver",
+                    success,
+                    success ? "Ran " + total.count() + " mixed operations at a paced rate"
+                            : String.format("Ran %d operations with %d errors, corrected latency %s",
+                                    total.count(), total.errors(), corrected ? "consistent" : "below service time"),
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (Exception e) {
+            testResults.put("workloadDriver", new TestResult(
+                    "Workload Driver",
+                    false,
+                    "Exception: " + e.getMessage(),
+                    System.currentTimeMillis() - startTime
+            ));
+        }
+    }
+
+    private int countReplies(List<Reply> replies) {
+        int count = 0;
+        for (Reply reply : replies) {
+            count += 1 + countReplies(reply.getChildren());
+        }
+        return count;
+    }
+
     private void printTestResults() {
         System.out.println("\nTest Results Summary:");
         System.out.println("====================");
@@ -421,6 +904,12 @@ public class TicketConsumer {
         stats.forEach((status, count) ->
                 System.out.printf("- %s: %d tickets\n", status, count));
 
+        // Show open workload per department
+        Map<String, Integer> openByDepartment = ticketService.getOpenTicketCountsByDepartment();
+        System.out.println("\nOpen Tickets by Department:");
+        openByDepartment.forEach((dept, count) ->
+                System.out.printf("- %s: %d tickets\n", dept, count));
+
         // Show unassigned tickets
         List<Ticket> unassignedTickets = ticketService.getUnassignedTickets();
         System.out.printf("\nUnassigned Tickets: %d\n", unassignedTickets.size());
@@ -437,13 +926,10 @@ public class TicketConsumer {
             boolean success = true;
             StringBuilder message = new StringBuilder();
 
-            // Test 1: Try to get non-existent ticket
-            try {
-                ticketService.getTicket("nonexistent-id");
+            // Test 1: A non-existent ticket reads as null
+            if (ticketService.getTicket("nonexistent-id") != null) {
                 success = false;
-                message.append("Failed to handle non-existent ticket properly\n");
-            } catch (IllegalArgumentException e) {
-                // Expected behavior
+                message.append("Returned a ticket for a non-existent id\n");
             }
 
             // Test 2: Try to edit non-existent reply
@@ -456,14 +942,21 @@ public class TicketConsumer {
                 // Expected behavior
             }
 
-            // Test 3: Try to resolve already resolved ticket
+            // Test 3: Resolving a resolved ticket leaves it resolved
+            Ticket resolved = ticketService.createTicket("Test Ticket", "Description");
+            ticketService.resolveTicket(resolved.getId());
+            ticketService.resolveTicket(resolved.getId());
+            if (!"RESOLVED".equals(ticketService.getTicket(resolved.getId()).getStatus())) {
+                success = false;
+                message.append("Failed to keep a twice resolved ticket resolved\n");
+            }
+
+            // Test 4: Try to resolve non-existent ticket
             try {
-                Ticket ticket = ticketService.createTicket("Test Ticket", "Description");
-                ticketService.resolveTicket(ticket.getId());
-                ticketService.resolveTicket(ticket.getId());
+                ticketService.resolveTicket("nonexistent-id");
                 success = false;
-                message.append("Failed to handle double resolution properly\n");
-            } catch (IllegalStateException e) {
+                message.append("Failed to handle resolving a non-existent ticket properly\n");
+            } catch (IllegalArgumentException e) {
                 // Expected behavior
             }
 
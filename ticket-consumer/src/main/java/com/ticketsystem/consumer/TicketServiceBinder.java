@@ -0,0 +1,208 @@
+package com.ticketsystem.consumer;
+
+import com.ticketsystem.api.service.AsyncTicketService;
+import com.ticketsystem.api.service.TicketService;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds the consumer to the highest ranked {@link TicketService}, following
+ * {@link Constants#SERVICE_RANKING} and then the lowest service id like
+ * {@code getServiceReference}. Each binding runs the test suite, the feature
+ * demo and the configured workload on the consumer's own thread, so bundle
+ * start never waits for them. When the bound service goes away or a higher
+ * ranked one appears, the running session is cancelled and the next one
+ * starts against the new best service.
+ */
+class TicketServiceBinder extends ServiceTracker<TicketService, TicketService> {
+    private final WorkloadConfig workload;
+    private final ExecutorService worker;
+    private final Object lock = new Object();
+    // Guarded by lock
+    private ServiceReference<TicketService> bound;
+    private Session session;
+
+    // workload is null when no load run is configured
+    TicketServiceBinder(BundleContext context, WorkloadConfig workload) {
+        super(context, TicketService.class, null);
+        this.workload = workload;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ticket-consumer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public TicketService addingService(ServiceReference<TicketService> reference) {
+        TicketService service = super.addingService(reference);
+        if (service != null) {
+            // The new service is not tracked until this returns, so it is compared directly
+            synchronized (lock) {
+                if (bound == null || reference.compareTo(bound) > 0) {
+                    bind(reference, service);
+                }
+            }
+        }
+        return service;
+    }
+
+    @Override
+    public void modifiedService(ServiceReference<TicketService> reference, TicketService service) {
+        // A ranking change may promote another service
+        bindBest();
+    }
+
+    @Override
+    public void removedService(ServiceReference<TicketService> reference, TicketService service) {
+        synchronized (lock) {
+            if (reference.equals(bound)) {
+                unbind();
+                bindBest();
+            }
+        }
+        super.removedService(reference, service);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        synchronized (lock) {
+            unbind();
+        }
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.out.println("Ticket consumer session still running after 30s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void bindBest() {
+        synchronized (lock) {
+            // Removed services are no longer tracked, and nothing is once the tracker closes
+            ServiceReference<TicketService> best = getServiceReference();
+            if (best == null) {
+                unbind();
+            } else if (!best.equals(bound)) {
+                TicketService service = getService(best);
+                if (service != null) {
+                    bind(best, service);
+                }
+            }
+        }
+    }
+
+    private void bind(ServiceReference<TicketService> reference, TicketService service) {
+        unbind();
+        System.out.println("Ticket consumer bound to " + describe(reference));
+        bound = reference;
+        session = new Session(reference, service);
+        worker.execute(session);
+    }
+
+    private void unbind() {
+        if (session != null) {
+            System.out.println("Ticket consumer unbound from " + describe(bound));
+            session.cancel();
+            session = null;
+            bound = null;
+        }
+    }
+
+    private static String describe(ServiceReference<?> reference) {
+        Object ranking = reference.getProperty(Constants.SERVICE_RANKING);
+        Bundle bundle = reference.getBundle();
+        return "TicketService " + reference.getProperty(Constants.SERVICE_ID)
+                + " (ranking " + (ranking != null ? ranking : 0) + ", "
+                + (bundle != null ? bundle.getSymbolicName() : "unregistered") + ")";
+    }
+
+    // The AsyncTicketService registered by the same bundle as the bound service, if any
+    private ServiceReference<AsyncTicketService> asyncReferenceFor(ServiceReference<TicketService> reference) {
+        Bundle bundle = reference.getBundle();
+        if (bundle == null) {
+            return null;
+        }
+        try {
+            for (ServiceReference<AsyncTicketService> async : context.getServiceReferences(AsyncTicketService.class, null)) {
+                if (bundle.equals(async.getBundle())) {
+                    return async;
+                }
+            }
+        } catch (InvalidSyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+        return null;
+    }
+
+    /**
+     * One run against a bound service. A cancelled session skips the phases it
+     * has not started and stops a running workload; a test pass in progress
+     * finishes first.
+     */
+    private final class Session implements Runnable {
+        private final ServiceReference<TicketService> reference;
+        private final TicketService service;
+        private volatile boolean cancelled;
+        private volatile WorkloadDriver driver;
+
+        Session(ServiceReference<TicketService> reference, TicketService service) {
+            this.reference = reference;
+            this.service = service;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            ServiceReference<AsyncTicketService> asyncReference = asyncReferenceFor(reference);
+            AsyncTicketService async = asyncReference != null ? context.getService(asyncReference) : null;
+            try {
+                TicketConsumer consumer = new TicketConsumer(service, async);
+                consumer.runAllTests();
+                if (!cancelled) {
+                    consumer.demonstrateAllFeatures();
+                }
+                if (!cancelled && workload != null) {
+                    WorkloadDriver load = new WorkloadDriver(service, workload);
+                    driver = load;
+                    // Read after publishing the driver, so a concurrent cancel either stops it or is seen here
+                    if (!cancelled) {
+                        System.out.println("Ticket workload started for "
+                                + TimeUnit.MILLISECONDS.toSeconds(workload.getDurationMillis()) + "s");
+                        load.run().publish();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.out.println("Ticket consumer run against " + describe(reference) + " failed: " + e);
+            } finally {
+                if (async != null) {
+                    context.ungetService(asyncReference);
+                }
+            }
+        }
+
+        // The run ends early; a stopped workload still reports the time it ran
+        void cancel() {
+            cancelled = true;
+            WorkloadDriver load = driver;
+            if (load != null) {
+                load.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ticketsystem.consumer;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Settings of a {@link WorkloadDriver} run. Read from the "ticket.load.*"
+ * framework properties by the consumer bundle; a run only starts when
+ * {@link #DURATION} is set.
+ */
+class WorkloadConfig {
+    static final String DURATION = "ticket.load.duration.seconds";
+    static final String WARMUP = "ticket.load.warmup.seconds";
+    static final String THREADS = "ticket.load.threads";
+    static final String VIRTUAL_THREADS = "ticket.load.virtual.threads";
+    // Target operations per second over all workers; 0 runs every worker as fast as it can
+    static final String RATE = "ticket.load.rate";
+    static final String MIX = "ticket.load.mix";
+    static final String SEED_TICKETS = "ticket.load.seed.tickets";
+    static final String REPORT_INTERVAL = "ticket.load.report.interval.seconds";
+    static final String REPORT_FILE = "ticket.load.report";
+
+    static final String DEFAULT_MIX = "create=10,reply=25,assign=15,resolve=5,search=30,statistics=15";
+
+    /** Operations a workload is mixed from, named as in {@link #MIX}. */
+    enum Operation {
+        CREATE, REPLY, ASSIGN, RESOLVE, SEARCH, STATISTICS;
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private long durationMillis;
+    private long warmupMillis = TimeUnit.SECONDS.toMillis(5);
+    private int threads = 8;
+    private boolean virtualThreads;
+    private double rate;
+    private Map<Operation, Integer> mix = parseMix(DEFAULT_MIX);
+    private int seedTickets = 1000;
+    private long reportIntervalMillis = TimeUnit.SECONDS.toMillis(10);
+    private Path reportFile;
+
+    // Returns null when no duration is configured
+    static WorkloadConfig fromProperties(Function<String, String> properties) {
+        String duration = properties.apply(DURATION);
+        if (duration == null || duration.trim().isEmpty()) {
+            return null;
+        }
+        WorkloadConfig config = new WorkloadConfig().duration(parseLong(DURATION, duration), TimeUnit.SECONDS);
+        String value;
+        if ((value = properties.apply(WARMUP)) != null) {
+            config.warmup(parseLong(WARMUP, value), TimeUnit.SECONDS);
+        }
+        if ((value = properties.apply(THREADS)) != null) {
+            config.threads((int) parseLong(THREADS, value));
+        }
+        if ((value = properties.apply(VIRTUAL_THREADS)) != null) {
+            config.virtualThreads(Boolean.parseBoolean(value.trim()));
+        }
+        if ((value = properties.apply(RATE)) != null) {
+            try {
+                config.rate(Double.parseDouble(value.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + RATE + ": " + value);
+            }
+        }
+        if ((value = properties.apply(MIX)) != null) {
+            config.mix(parseMix(value));
+        }
+        if ((value = properties.apply(SEED_TICKETS)) != null) {
+            config.seedTickets((int) parseLong(SEED_TICKETS, value));
+        }
+        if ((value = properties.apply(REPORT_INTERVAL)) != null) {
+            config.reportInterval(parseLong(REPORT_INTERVAL, value), TimeUnit.SECONDS);
+        }
+        value = properties.apply(REPORT_FILE);
+        config.reportFile(value != null && !value.trim().isEmpty()
+                ? Paths.get(value.trim())
+                : Paths.get("ticket-load-report-" + System.currentTimeMillis() + ".txt"));
+        return config;
+    }
+
+    private static long parseLong(String key, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + key + ": " + value);
+        }
+    }
+
+    // "create=10,reply=25,..."; operations left out are not run
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split("=", 2);
+            Operation operation;
+            try {
+                operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown workload operation: " + parts[0].trim());
+            }
+            int weight = parts.length == 2 ? (int) parseLong(MIX, parts[1]) : 1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + operation.label() + " in " + MIX);
+            }
+            weights.put(operation, weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Workload mix has no operations: " + mix);
+        }
+        return weights;
+    }
+
+    WorkloadConfig duration(long amount, TimeUnit unit) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Workload duration must be positive: " + amount);
+        }
+        this.durationMillis = unit.toMillis(amount);
+        return this;
+    }
+
+    WorkloadConfig warmup(long amount, TimeUnit unit) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Workload warmup must not be negative: " + amount);
+        }
+        this.warmupMillis = unit.toMillis(amount);
+        return this;
+    }
+
+    WorkloadConfig threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Workload thread count must be positive: " + threads);
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    WorkloadConfig virtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    WorkloadConfig rate(double opsPerSecond) {
+        if (opsPerSecond < 0) {
+            throw new IllegalArgumentException("Workload rate must not be negative: " + opsPerSecond);
+        }
+        this.rate = opsPerSecond;
+        return this;
+    }
+
+    WorkloadConfig mix(Map<Operation, Integer> mix) {
+        this.mix = new EnumMap<>(mix);
+        return this;
+    }
+
+    WorkloadConfig seedTickets(int seedTickets) {
+        this.seedTickets = Math.max(0, seedTickets);
+        return this;
+    }
+
+    // 0 turns interval reports off
+    WorkloadConfig reportInterval(long amount, TimeUnit unit) {
+        this.reportIntervalMillis = Math.max(0, unit.toMillis(amount));
+        return this;
+    }
+
+    // null only prints the report
+    WorkloadConfig reportFile(Path reportFile) {
+        this.reportFile = reportFile;
+        return this;
+    }
+
+    long getDurationMillis() { return durationMillis; }
+    long getWarmupMillis() { return warmupMillis; }
+    int getThreads() { return threads; }
+    boolean isVirtualThreads() { return virtualThreads; }
+    double getRate() { return rate; }
+    Map<Operation, Integer> getMix() { return mix; }
+    int getSeedTickets() { return seedTickets; }
+    long getReportIntervalMillis() { return reportIntervalMillis; }
+    Path getReportFile() { return reportFile; }
+}
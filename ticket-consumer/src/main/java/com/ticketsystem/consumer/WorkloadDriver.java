@@ -0,0 +1,454 @@
+package com.ticketsystem.consumer;
+
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketDraft;
+import com.ticketsystem.api.service.TicketService;
+import com.ticketsystem.consumer.WorkloadConfig.Operation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a weighted mix of ticket operations against a TicketService for a
+ * fixed duration and reports throughput, errors and latency per operation.
+ *
+ * With a target rate every worker follows its own schedule of intended start
+ * times, and latency is measured from the intended start rather than from the
+ * moment the call was made. A stall therefore shows up in the latency of every
+ * call that should have run during it, instead of silently delaying them
+ * (coordinated omission); the plain service time is reported next to it.
+ * Without a rate the workers run closed-loop and both are the same.
+ */
+class WorkloadDriver {
+    private static final String[] WORDS = {"printer", "network", "vpn", "laptop", "email", "password",
+            "server", "database", "backup", "license", "monitor", "access", "outage", "upgrade", "crash"};
+    private static final String[] DEPARTMENTS = {"it", "hr", "finance", "sales", "support"};
+    private static final int USERS_PER_DEPARTMENT = 20;
+    // Recently created ids that reply, assign and resolve pick from
+    private static final int ID_POOL_SIZE = 1 << 16;
+    private static final int SEED_BATCH = 500;
+
+    private final TicketService service;
+    private final WorkloadConfig config;
+    // Operations repeated by weight, so a uniform pick follows the mix
+    private final Operation[] schedule;
+    private final AtomicReferenceArray<String> ids = new AtomicReferenceArray<>(ID_POOL_SIZE);
+    private final AtomicLong idCount = new AtomicLong();
+    private volatile boolean stopped;
+
+    WorkloadDriver(TicketService service, WorkloadConfig config) {
+        this.service = service;
+        this.config = config;
+        List<Operation> weighted = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> entry : config.getMix().entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                weighted.add(entry.getKey());
+            }
+        }
+        this.schedule = weighted.toArray(new Operation[0]);
+    }
+
+    // Ends a running workload early; the report covers the time run so far
+    void stop() {
+        stopped = true;
+    }
+
+    Summary run() throws InterruptedException {
+        seed();
+        int workerCount = config.getThreads();
+        ExecutorService virtualExecutor = config.isVirtualThreads() ? newVirtualThreadExecutor() : null;
+        boolean virtual = virtualExecutor != null;
+        ExecutorService executor = virtual ? virtualExecutor : newPlatformThreadExecutor(workerCount);
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.MILLISECONDS.toNanos(config.getWarmupMillis());
+        long end = measureFrom + TimeUnit.MILLISECONDS.toNanos(config.getDurationMillis());
+        // Per-worker gap between intended starts; the workers are staggered by the overall gap
+        long interval = config.getRate() > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * workerCount / config.getRate()) : 0;
+        List<Worker> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker(start + i * interval / workerCount, interval, measureFrom, end);
+            workers.add(worker);
+            executor.execute(worker);
+        }
+        executor.shutdown();
+
+        Summary summary = new Summary(virtual);
+        long reportInterval = TimeUnit.MILLISECONDS.toNanos(config.getReportIntervalMillis());
+        long windowStart = measureFrom;
+        long nextReport = reportInterval > 0 ? measureFrom + reportInterval : Long.MAX_VALUE;
+        try {
+            while (!executor.awaitTermination(Math.max(1, Math.min(nextReport, end) - System.nanoTime()),
+                    TimeUnit.NANOSECONDS)) {
+                long now = System.nanoTime();
+                if (now >= nextReport) {
+                    summary.addWindow(drain(workers), now - windowStart, now - measureFrom);
+                    windowStart = now;
+                    nextReport += reportInterval;
+                }
+            }
+        } catch (InterruptedException e) {
+            stopped = true;
+            executor.shutdownNow();
+            throw e;
+        }
+        long now = System.nanoTime();
+        Stats last = drain(workers);
+        if (reportInterval > 0 && last.count() > 0) {
+            summary.addWindow(last, now - windowStart, Math.min(now, end) - measureFrom);
+        } else {
+            summary.total.add(last);
+        }
+        summary.measuredNanos = Math.max(1, Math.min(now, end) - measureFrom);
+        return summary;
+    }
+
+    private void seed() {
+        int remaining = config.getSeedTickets();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (remaining > 0 && !stopped) {
+            List<TicketDraft> drafts = new ArrayList<>(Math.min(SEED_BATCH, remaining));
+            for (int i = 0; i < SEED_BATCH && i < remaining; i++) {
+                TicketDraft draft = new TicketDraft(title(random), description(random));
+                if (random.nextBoolean()) {
+                    draft.setAssignedTo(assignee(random));
+                }
+                drafts.add(draft);
+            }
+            for (Ticket ticket : service.createTickets(drafts).getValues()) {
+                remember(ticket.getId());
+            }
+            remaining -= drafts.size();
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor, looked up at runtime since the bundle targets Java 11
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads not available, running the workload on platform threads");
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ticket-load-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Stats drain(List<Worker> workers) {
+        Stats window = new Stats();
+        for (Worker worker : workers) {
+            window.add(worker.drain());
+        }
+        return window;
+    }
+
+    private void execute(Operation operation, ThreadLocalRandom random) {
+        switch (operation) {
+            case CREATE:
+                remember(service.createTicket(title(random), description(random)).getId());
+                break;
+            case REPLY:
+                service.addReply(randomId(random), "Workload reply about the " + word(random), null);
+                break;
+            case ASSIGN:
+                service.assignTicket(randomId(random), assignee(random));
+                break;
+            case RESOLVE:
+                service.resolveTicket(randomId(random));
+                break;
+            case SEARCH:
+                service.searchTickets(word(random));
+                break;
+            case STATISTICS:
+                service.getTicketStatistics();
+                break;
+            default:
+                throw new IllegalStateException("Unhandled workload operation: " + operation);
+        }
+    }
+
+    private void remember(String id) {
+        ids.set((int) (idCount.getAndIncrement() % ID_POOL_SIZE), id);
+    }
+
+    // Creates a ticket when none is known yet, so the first operations have a target
+    private String randomId(ThreadLocalRandom random) {
+        long known = Math.min(idCount.get(), ID_POOL_SIZE);
+        String id = known > 0 ? ids.get(random.nextInt((int) known)) : null;
+        if (id == null) {
+            id = service.createTicket(title(random), description(random)).getId();
+            remember(id);
+        }
+        return id;
+    }
+
+    private static String word(ThreadLocalRandom random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String title(ThreadLocalRandom random) {
+        return word(random) + " " + word(random) + " issue";
+    }
+
+    private static String description(ThreadLocalRandom random) {
+        return "The " + word(random) + " fails after the " + word(random) + " " + word(random) + " change";
+    }
+
+    private static String assignee(ThreadLocalRandom random) {
+        return DEPARTMENTS[random.nextInt(DEPARTMENTS.length)] + ".user" + random.nextInt(USERS_PER_DEPARTMENT);
+    }
+
+    private final class Worker implements Runnable {
+        private final long firstStart;
+        private final long interval;
+        private final long measureFrom;
+        private final long end;
+        // Guarded by this; the reporter swaps it out once per interval
+        private Stats stats = new Stats();
+
+        Worker(long firstStart, long interval, long measureFrom, long end) {
+            this.firstStart = firstStart;
+            this.interval = interval;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long intended = firstStart;
+            while (!stopped) {
+                long now = System.nanoTime();
+                if (interval > 0) {
+                    if (intended >= end) {
+                        break;
+                    }
+                    if (now < intended) {
+                        LockSupport.parkNanos(intended - now);
+                        continue;
+                    }
+                } else {
+                    if (now >= end) {
+                        break;
+                    }
+                    intended = now;
+                }
+                Operation operation = schedule[random.nextInt(schedule.length)];
+                boolean failed = false;
+                long begin = System.nanoTime();
+                try {
+                    execute(operation, random);
+                } catch (RuntimeException e) {
+                    failed = true;
+                }
+                long finish = System.nanoTime();
+                if (intended >= measureFrom) {
+                    synchronized (this) {
+                        stats.record(operation, finish - begin, finish - intended, failed);
+                    }
+                }
+                // A late worker keeps its schedule, so the calls it owes count their wait
+                intended += interval;
+            }
+        }
+
+        synchronized Stats drain() {
+            Stats drained = stats;
+            stats = new Stats();
+            return drained;
+        }
+    }
+
+    // Latency and errors per operation over some stretch of the run
+    static final class Stats {
+        private final LatencyHistogram[] service = new LatencyHistogram[Operation.values().length];
+        private final LatencyHistogram[] response = new LatencyHistogram[Operation.values().length];
+        private final long[] errors = new long[Operation.values().length];
+
+        Stats() {
+            for (int i = 0; i < service.length; i++) {
+                service[i] = new LatencyHistogram();
+                response[i] = new LatencyHistogram();
+            }
+        }
+
+        void record(Operation operation, long serviceNanos, long responseNanos, boolean failed) {
+            service[operation.ordinal()].record(serviceNanos);
+            response[operation.ordinal()].record(responseNanos);
+            if (failed) {
+                errors[operation.ordinal()]++;
+            }
+        }
+
+        void add(Stats other) {
+            for (int i = 0; i < service.length; i++) {
+                service[i].add(other.service[i]);
+                response[i].add(other.response[i]);
+                errors[i] += other.errors[i];
+            }
+        }
+
+        long count() {
+            long count = 0;
+            for (LatencyHistogram histogram : service) {
+                count += histogram.count();
+            }
+            return count;
+        }
+
+        long errors() {
+            long count = 0;
+            for (long value : errors) {
+                count += value;
+            }
+            return count;
+        }
+
+        LatencyHistogram service(Operation operation) {
+            return service[operation.ordinal()];
+        }
+
+        LatencyHistogram response(Operation operation) {
+            return response[operation.ordinal()];
+        }
+
+        long errors(Operation operation) {
+            return errors[operation.ordinal()];
+        }
+
+        LatencyHistogram allResponses() {
+            LatencyHistogram all = new LatencyHistogram();
+            for (LatencyHistogram histogram : response) {
+                all.add(histogram);
+            }
+            return all;
+        }
+    }
+
+    /** Totals of a run and, for soak runs, one line per report interval. */
+    final class Summary {
+        private final Instant started = Instant.now();
+        private final boolean virtualThreads;
+        private final Stats total = new Stats();
+        private final List<String> timeline = new ArrayList<>();
+        private long measuredNanos;
+
+        private Summary(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+
+        private void addWindow(Stats window, long windowNanos, long elapsedNanos) {
+            total.add(window);
+            LatencyHistogram latency = window.allResponses();
+            String line = String.format("%6ds %10.1f ops/s %8d errors  p50 %9s  p99 %9s  max %9s",
+                    TimeUnit.NANOSECONDS.toSeconds(elapsedNanos), window.count() * 1e9 / Math.max(1, windowNanos),
+                    window.errors(), millis(latency.percentile(0.5)), millis(latency.percentile(0.99)),
+                    millis(latency.max()));
+            timeline.add(line);
+            System.out.println("Workload " + line);
+        }
+
+        Stats getTotal() {
+            return total;
+        }
+
+        double throughput() {
+            return total.count() * 1e9 / measuredNanos;
+        }
+
+        String format() {
+            StringBuilder report = new StringBuilder();
+            report.append("Ticket Workload Report\n");
+            report.append("======================\n");
+            report.append(String.format("Service: %s%n", service.getClass().getName()));
+            report.append(String.format("Started: %s%n", started));
+            report.append(String.format("Duration: %.1fs measured after %ds warmup%n",
+                    measuredNanos / 1e9, TimeUnit.MILLISECONDS.toSeconds(config.getWarmupMillis())));
+            report.append(String.format("Workers: %d on %s threads%n", config.getThreads(),
+                    virtualThreads ? "virtual" : "platform"));
+            report.append(String.format("Target rate: %s%n",
+                    config.getRate() > 0 ? String.format("%.1f ops/s", config.getRate()) : "unthrottled (closed loop)"));
+            report.append(String.format("Mix: %s%n", mixLabel()));
+            report.append(String.format("Throughput: %.1f ops/s, %d operations, %d errors%n%n",
+                    throughput(), total.count(), total.errors()));
+
+            report.append("Latency from intended start (ms, corrected for coordinated omission)\n");
+            table(report, true);
+            report.append("\nService time (ms)\n");
+            table(report, false);
+            if (!timeline.isEmpty()) {
+                report.append("\nTimeline (latency from intended start)\n");
+                for (String line : timeline) {
+                    report.append(line).append('\n');
+                }
+            }
+            return report.toString();
+        }
+
+        private void table(StringBuilder report, boolean corrected) {
+            report.append(String.format("%-11s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                    "operation", "count", "errors", "ops/s", "p50", "p90", "p99", "p99.9", "max"));
+            for (Operation operation : Operation.values()) {
+                LatencyHistogram latency = corrected ? total.response(operation) : total.service(operation);
+                if (latency.count() == 0) {
+                    continue;
+                }
+                report.append(String.format("%-11s %10d %8d %10.1f %9s %9s %9s %9s %9s%n",
+                        operation.label(), latency.count(), total.errors(operation), latency.count() * 1e9 / measuredNanos,
+                        millis(latency.percentile(0.5)), millis(latency.percentile(0.9)),
+                        millis(latency.percentile(0.99)), millis(latency.percentile(0.999)), millis(latency.max())));
+            }
+        }
+
+        private String mixLabel() {
+            StringBuilder mix = new StringBuilder();
+            for (Map.Entry<Operation, Integer> entry : config.getMix().entrySet()) {
+                if (mix.length() > 0) {
+                    mix.append(',');
+                }
+                mix.append(entry.getKey().label()).append('=').append(entry.getValue());
+            }
+            return mix.toString();
+        }
+
+        // Prints the report and writes it to the configured file, if any
+        void publish() throws IOException {
+            String report = format();
+            System.out.println("\n" + report);
+            Path file = config.getReportFile();
+            if (file != null) {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                Files.write(file, report.getBytes(StandardCharsets.UTF_8));
+                System.out.println("Workload report written to " + file.toAbsolutePath());
+            }
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,250 @@
+package com.ticketsystem.core;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.ReplyDraft;
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketDraft;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.User;
+import com.ticketsystem.api.query.QueryPlan;
+import com.ticketsystem.api.query.TicketQuery;
+import com.ticketsystem.api.service.BulkResult;
+import com.ticketsystem.api.service.TicketFilter;
+import com.ticketsystem.api.service.TicketPage;
+import com.ticketsystem.api.service.TicketService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * The registered TicketService while the real one may still be starting.
+ * Calls wait until startup has finished and then go straight to the started
+ * service, at the cost of one volatile read; they fail with
+ * IllegalStateException if startup failed.
+ */
+class PendingTicketService implements TicketService {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile TicketService delegate;
+    private volatile Throwable failure;
+
+    void ready(TicketService service) {
+        delegate = service;
+        started.countDown();
+    }
+
+    void failed(Throwable cause) {
+        failure = cause;
+        started.countDown();
+    }
+
+    boolean isReady() {
+        return delegate != null;
+    }
+
+    private TicketService service() {
+        TicketService service = delegate;
+        return service != null ? service : await();
+    }
+
+    private TicketService await() {
+        try {
+            started.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the ticket service was starting");
+        }
+        if (delegate == null) {
+            throw new IllegalStateException("Ticket service failed to start", failure);
+        }
+        return delegate;
+    }
+
+    @Override
+    public Ticket createTicket(String title, String description) {
+        return service().createTicket(title, description);
+    }
+
+    @Override
+    public void updateTicket(Ticket ticket) {
+        service().updateTicket(ticket);
+    }
+
+    @Override
+    public void assignTicket(String ticketId, String userId) {
+        service().assignTicket(ticketId, userId);
+    }
+
+    @Override
+    public long updateTicket(Ticket ticket, long expectedVersion) {
+        return service().updateTicket(ticket, expectedVersion);
+    }
+
+    @Override
+    public long assignTicket(String ticketId, String userId, long expectedVersion) {
+        return service().assignTicket(ticketId, userId, expectedVersion);
+    }
+
+    @Override
+    public Reply addReply(String ticketId, String content, String parentReplyId) {
+        return service().addReply(ticketId, content, parentReplyId);
+    }
+
+    @Override
+    public void editReply(String ticketId, String replyId, String newContent) {
+        service().editReply(ticketId, replyId, newContent);
+    }
+
+    @Override
+    public void resolveTicket(String ticketId) {
+        service().resolveTicket(ticketId);
+    }
+
+    @Override
+    public BulkResult<Ticket> createTickets(List<TicketDraft> drafts) {
+        return service().createTickets(drafts);
+    }
+
+    @Override
+    public BulkResult<Reply> addReplies(String ticketId, List<ReplyDraft> drafts) {
+        return service().addReplies(ticketId, drafts);
+    }
+
+    @Override
+    public BulkResult<Long> assignTickets(Map<String, String> assignments) {
+        return service().assignTickets(assignments);
+    }
+
+    @Override
+    public BulkResult<Long> resolveTickets(Collection<String> ticketIds) {
+        return service().resolveTickets(ticketIds);
+    }
+
+    @Override
+    public User registerUser(User user) {
+        return service().registerUser(user);
+    }
+
+    @Override
+    public User getUser(String userId) {
+        return service().getUser(userId);
+    }
+
+    @Override
+    public Ticket getTicket(String id) {
+        return service().getTicket(id);
+    }
+
+    @Override
+    public List<Ticket> getAllTickets() {
+        return service().getAllTickets();
+    }
+
+    @Override
+    public List<Ticket> getTicketsByStatus(String status) {
+        return service().getTicketsByStatus(status);
+    }
+
+    @Override
+    public List<Ticket> getTicketsByAssignee(String userId) {
+        return service().getTicketsByAssignee(userId);
+    }
+
+    @Override
+    public Map<String, List<Ticket>> getTicketsByDepartment() {
+        return service().getTicketsByDepartment();
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String searchTerm) {
+        return service().searchTickets(searchTerm);
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String query, int offset, int limit) {
+        return service().searchTickets(query, offset, limit);
+    }
+
+    @Override
+    public List<Reply> getTicketRepliesTree(String ticketId) {
+        return service().getTicketRepliesTree(ticketId);
+    }
+
+    @Override
+    public Map<String, Integer> getTicketStatistics() {
+        return service().getTicketStatistics();
+    }
+
+    @Override
+    public Map<String, Integer> getOpenTicketCountsByAssignee() {
+        return service().getOpenTicketCountsByAssignee();
+    }
+
+    @Override
+    public Map<String, Integer> getOpenTicketCountsByDepartment() {
+        return service().getOpenTicketCountsByDepartment();
+    }
+
+    @Override
+    public List<Ticket> getRecentTickets(int limit) {
+        return service().getRecentTickets(limit);
+    }
+
+    @Override
+    public List<Ticket> getUnassignedTickets() {
+        return service().getUnassignedTickets();
+    }
+
+    @Override
+    public List<Ticket> getOverdueTickets() {
+        return service().getOverdueTickets();
+    }
+
+    @Override
+    public Map<String, Long> getQueryCacheStatistics() {
+        return service().getQueryCacheStatistics();
+    }
+
+    @Override
+    public TicketPage page(TicketFilter filter, String afterId, int limit) {
+        return service().page(filter, afterId, limit);
+    }
+
+    @Override
+    public Stream<Ticket> streamTickets(TicketFilter filter) {
+        return service().streamTickets(filter);
+    }
+
+    @Override
+    public List<Ticket> query(TicketQuery query) {
+        return service().query(query);
+    }
+
+    @Override
+    public QueryPlan explain(TicketQuery query) {
+        return service().explain(query);
+    }
+
+    @Override
+    public long getLastEventSequence() {
+        return service().getLastEventSequence();
+    }
+
+    @Override
+    public List<TicketEvent> getEventsAfter(long sequence, int limit) {
+        return service().getEventsAfter(sequence, limit);
+    }
+
+    @Override
+    public TicketSnapshot getTicketSnapshot(String id) {
+        return service().getTicketSnapshot(id);
+    }
+
+    @Override
+    public List<TicketSnapshot> getTicketSnapshots() {
+        return service().getTicketSnapshots();
+    }
+}
@@ -0,0 +1,58 @@
+package com.ticketsystem.core;
+
+import com.ticketsystem.api.event.TicketEventListener;
+import com.ticketsystem.core.impl.TicketEventLog;
+import com.ticketsystem.core.impl.TicketServiceImpl;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+
+/**
+ * Subscribes every registered {@link TicketEventListener} service to the
+ * ticket change events, starting after the sequence in its
+ * {@link TicketEventListener#FROM_SEQUENCE} property, and unsubscribes it when
+ * the service goes away.
+ */
+class TicketEventWhiteboard extends ServiceTracker<TicketEventListener, TicketEventLog.Subscription> {
+    private final TicketServiceImpl service;
+
+    TicketEventWhiteboard(BundleContext context, TicketServiceImpl service) {
+        super(context, TicketEventListener.class, null);
+        this.service = service;
+    }
+
+    @Override
+    public TicketEventLog.Subscription addingService(ServiceReference<TicketEventListener> reference) {
+        TicketEventListener listener = context.getService(reference);
+        if (listener == null) {
+            return null;
+        }
+        try {
+            return service.subscribe(listener,
+                    longProperty(reference, TicketEventListener.FROM_SEQUENCE, -1),
+                    (int) longProperty(reference, TicketEventListener.BUFFER, TicketEventLog.DEFAULT_BUFFER_SIZE));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ignoring ticket event listener " + reference + ": " + e.getMessage());
+            context.ungetService(reference);
+            return null;
+        }
+    }
+
+    @Override
+    public void removedService(ServiceReference<TicketEventListener> reference, TicketEventLog.Subscription subscription) {
+        subscription.close();
+        context.ungetService(reference);
+    }
+
+    private static long longProperty(ServiceReference<?> reference, String key, long defaultValue) {
+        Object value = reference.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + key + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.ticketsystem.core;
+
+import com.ticketsystem.api.metrics.TicketMetrics;
+import com.ticketsystem.api.service.AsyncTicketService;
+import com.ticketsystem.api.service.TicketService;
+import com.ticketsystem.core.impl.TicketServiceImpl;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Declarative Services component that publishes the ticket services.
+ * Activation only registers them; the service behind them is built, recovered
+ * and warmed up on a background thread when a consumer first gets one of them
+ * (or right away with {@code ticket.activation=eager}). Registrations carry
+ * {@code ticket.ready=false} until then, and {@code true} once calls no longer
+ * wait for startup.
+ * <p>
+ * Settings come from the "com.ticketsystem.core" configuration, falling back
+ * to the framework properties of the same name. Configuration updates are
+ * applied in place; changing one of the build settings (persistence, store,
+ * ids, async executor, events, metrics) replaces the service with a new one
+ * without restarting the bundle.
+ */
+@Component(immediate = true, configurationPid = TicketServiceComponent.PID)
+public class TicketServiceComponent {
+    static final String PID = "com.ticketsystem.core";
+    static final String OVERDUE_WINDOW_HOURS = "overdue.window.hours";
+    static final String QUERY_CACHE_MAX_TICKETS = "query.cache.max.tickets";
+    // service.ranking of the registered services, so consumers can prefer one of several cores
+    // (e.g. a persistent one over an in-memory one)
+    static final String SERVICE_RANKING = "ticket.service.ranking";
+    // "lazy" (default) builds the service on first use, "eager" as soon as the component activates
+    static final String ACTIVATION = "ticket.activation";
+    // Service properties: whether startup has finished, and the time it spent restoring persisted tickets
+    static final String READY = "ticket.ready";
+    static final String RECOVERY_MILLIS = "ticket.recovery.millis";
+
+    private BundleContext context;
+    private volatile Map<String, Object> config = Collections.emptyMap();
+    // Guarded by this
+    private TicketServiceHost host;
+    private ServiceRegistration<?> registration;
+    private ServiceRegistration<?> asyncRegistration;
+    private ServiceRegistration<?> metricsRegistration;
+
+    @Activate
+    void activate(BundleContext context, Map<String, Object> config) {
+        this.context = context;
+        this.config = config;
+        validate();
+        synchronized (this) {
+            startHost();
+        }
+    }
+
+    @Modified
+    void modified(Map<String, Object> config) throws Exception {
+        Map<String, Object> previous = this.config;
+        this.config = config;
+        try {
+            validate();
+        } catch (RuntimeException e) {
+            // The service keeps running with the settings it has
+            this.config = previous;
+            throw e;
+        }
+        boolean rebuild = false;
+        for (String key : TicketServiceHost.BUILD_SETTINGS) {
+            rebuild |= !Objects.equals(previous.get(key), config.get(key));
+        }
+        if (rebuild) {
+            System.out.println("Ticket Service settings changed, rebuilding the service");
+            stopHost();
+            synchronized (this) {
+                startHost();
+            }
+            return;
+        }
+        synchronized (this) {
+            if (host != null) {
+                host.configure(overdueWindowHours(), queryCacheSize());
+                updateProperties(host);
+            }
+        }
+    }
+
+    @Deactivate
+    void deactivate() throws Exception {
+        stopHost();
+        System.out.println("Ticket Service stopped and unregistered");
+    }
+
+    // Configured value, else the framework property
+    private String setting(String key) {
+        Object value = config.get(key);
+        if (value != null) {
+            return value.toString();
+        }
+        return context.getProperty(key);
+    }
+
+    private void validate() {
+        if (overdueWindowHours() <= 0) {
+            throw new IllegalArgumentException(OVERDUE_WINDOW_HOURS + " must be positive");
+        }
+        if (queryCacheSize() < 0) {
+            throw new IllegalArgumentException(QUERY_CACHE_MAX_TICKETS + " must not be negative");
+        }
+        String activation = setting(ACTIVATION);
+        if (activation != null && !activation.trim().equalsIgnoreCase("lazy")
+                && !activation.trim().equalsIgnoreCase("eager")) {
+            throw new IllegalArgumentException("Unknown ticket activation: " + activation);
+        }
+    }
+
+    private long overdueWindowHours() {
+        String value = setting(OVERDUE_WINDOW_HOURS);
+        return value != null ? Long.parseLong(value.trim()) : TicketServiceImpl.DEFAULT_OVERDUE_WINDOW_HOURS;
+    }
+
+    private long queryCacheSize() {
+        String value = setting(QUERY_CACHE_MAX_TICKETS);
+        return value != null ? Long.parseLong(value.trim()) : TicketServiceImpl.DEFAULT_QUERY_CACHE_SIZE;
+    }
+
+    // Called holding this
+    private void startHost() {
+        TicketServiceHost started = new TicketServiceHost(context, this::setting, this::ready);
+        started.configure(overdueWindowHours(), queryCacheSize());
+        host = started;
+        Hashtable<String, Object> properties = properties(started);
+        asyncRegistration = context.registerService(AsyncTicketService.class.getName(),
+                new LazyService<>(started::asyncTicketService), properties);
+        if (started.hasMetrics()) {
+            metricsRegistration = context.registerService(TicketMetrics.class.getName(),
+                    new LazyService<>(started::metrics), null);
+        }
+        // Registered last, so consumers that bind to it find the companion services already there
+        registration = context.registerService(TicketService.class.getName(),
+                new LazyService<>(started::ticketService), properties);
+        String activation = setting(ACTIVATION);
+        if (activation != null && activation.trim().equalsIgnoreCase("eager")) {
+            started.start();
+        }
+        System.out.println("Ticket Service registered (" + (activation != null ? activation.trim() : "lazy") + ")");
+    }
+
+    private void stopHost() throws Exception {
+        TicketServiceHost stopped;
+        synchronized (this) {
+            stopped = host;
+            host = null;
+            // Unregistered first, so consumers release it while the companion services are still there
+            for (ServiceRegistration<?> unregister : new ServiceRegistration<?>[] {
+                    registration, metricsRegistration, asyncRegistration}) {
+                if (unregister != null) {
+                    unregister.unregister();
+                }
+            }
+            registration = null;
+            metricsRegistration = null;
+            asyncRegistration = null;
+        }
+        // Closed outside the lock, since a startup in progress calls back into ready()
+        if (stopped != null) {
+            stopped.close();
+        }
+    }
+
+    private synchronized void ready(TicketServiceHost started) {
+        if (started == host) {
+            updateProperties(started);
+        }
+    }
+
+    // Called holding this
+    private void updateProperties(TicketServiceHost current) {
+        Hashtable<String, Object> properties = properties(current);
+        asyncRegistration.setProperties(properties);
+        registration.setProperties(properties);
+    }
+
+    private Hashtable<String, Object> properties(TicketServiceHost current) {
+        Hashtable<String, Object> properties = new Hashtable<>();
+        properties.put(READY, current.isReady());
+        properties.put(RECOVERY_MILLIS, current.getRecoveryMillis());
+        String ranking = setting(SERVICE_RANKING);
+        if (ranking != null) {
+            properties.put(Constants.SERVICE_RANKING, Integer.parseInt(ranking.trim()));
+        }
+        return properties;
+    }
+
+    /**
+     * Hands out the service from the supplier when a bundle first gets it,
+     * which is what starts the host.
+     */
+    private static final class LazyService<S> implements ServiceFactory<S> {
+        private final Supplier<S> supplier;
+
+        LazyService(Supplier<S> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public S getService(Bundle bundle, ServiceRegistration<S> registration) {
+            return supplier.get();
+        }
+
+        @Override
+        public void ungetService(Bundle bundle, ServiceRegistration<S> registration, S service) {
+        }
+    }
+}
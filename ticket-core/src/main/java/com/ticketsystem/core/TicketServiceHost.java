@@ -0,0 +1,364 @@
+package com.ticketsystem.core;
+
+import com.ticketsystem.api.metrics.TicketMetrics;
+import com.ticketsystem.api.service.AsyncTicketService;
+import com.ticketsystem.api.service.TicketService;
+import com.ticketsystem.core.id.IdGenerator;
+import com.ticketsystem.core.id.RandomIdGenerator;
+import com.ticketsystem.core.id.TimeOrderedIdGenerator;
+import com.ticketsystem.core.impl.AsyncTicketServiceImpl;
+import com.ticketsystem.core.impl.TicketEventLog;
+import com.ticketsystem.core.impl.TicketServiceImpl;
+import com.ticketsystem.core.metrics.InstrumentedTicketService;
+import com.ticketsystem.core.metrics.TicketMetricsImpl;
+import com.ticketsystem.core.persistence.Durability;
+import com.ticketsystem.core.persistence.LogTicketJournal;
+import com.ticketsystem.core.persistence.TicketJournal;
+import com.ticketsystem.core.store.HeapTicketStore;
+import com.ticketsystem.core.store.MappedTicketStore;
+import com.ticketsystem.core.store.TicketStore;
+import org.osgi.framework.BundleContext;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One running ticket service with everything it is built from: journal,
+ * store, recovery, checkpoints, async executor, metrics and event listeners.
+ * Nothing is opened until the first {@link #start()}, which builds, recovers
+ * and warms up the service on a background thread. The TicketService handed
+ * out meanwhile is a {@link PendingTicketService}, so early calls wait for
+ * startup instead of seeing a partly recovered state.
+ */
+class TicketServiceHost {
+    // Settings, read from the component configuration or else the framework properties;
+    // persistence stays off unless a directory is configured
+    static final String PERSISTENCE_DIR = "ticket.persistence.dir";
+    static final String PERSISTENCE_DURABILITY = "ticket.persistence.durability";
+    static final String SNAPSHOT_INTERVAL = "ticket.persistence.snapshot.interval.seconds";
+    static final long DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 300;
+    // "heap" (default) or "mapped" to keep tickets in memory-mapped files off the heap
+    static final String STORE = "ticket.store";
+    static final String STORE_DIR = "ticket.store.dir";
+    static final String STORE_CACHE_SIZE = "ticket.store.cache.size";
+    // "time" (default), "uuid" or the class name of an IdGenerator in this bundle
+    static final String ID_GENERATOR = "ticket.id.generator";
+    // 0-65535, distinct per instance sharing ids; random when unset
+    static final String NODE_ID = "ticket.node.id";
+    // Executor of the AsyncTicketService: virtual threads unless disabled or unavailable
+    static final String ASYNC_VIRTUAL_THREADS = "ticket.async.virtual.threads";
+    static final String ASYNC_THREADS = "ticket.async.threads";
+    static final String ASYNC_MAX_PENDING = "ticket.async.max.pending";
+    // Change events retained for listeners to catch up from, also across restarts when persistence is on
+    static final String EVENT_HISTORY = "ticket.events.history";
+    // Per-method latency and error metrics, published as a TicketMetrics service (on by default)
+    // and as the MXBean com.ticketsystem:type=TicketMetrics when ticket.metrics.jmx is true
+    static final String METRICS_ENABLED = "ticket.metrics.enabled";
+    static final String METRICS_JMX = "ticket.metrics.jmx";
+    static final String METRICS_MBEAN_NAME = "com.ticketsystem:type=TicketMetrics";
+
+    // The settings above; changing one means building a new service
+    static final List<String> BUILD_SETTINGS = Collections.unmodifiableList(Arrays.asList(
+            PERSISTENCE_DIR, PERSISTENCE_DURABILITY, SNAPSHOT_INTERVAL, STORE, STORE_DIR, STORE_CACHE_SIZE,
+            ID_GENERATOR, NODE_ID, ASYNC_VIRTUAL_THREADS, ASYNC_THREADS, ASYNC_MAX_PENDING, EVENT_HISTORY,
+            METRICS_ENABLED, METRICS_JMX));
+
+    private final BundleContext context;
+    private final Function<String, String> settings;
+    private final Consumer<TicketServiceHost> onReady;
+    private final PendingTicketService pending = new PendingTicketService();
+    // null when metrics are disabled
+    private final TicketMetricsImpl metrics;
+    private volatile TicketServiceImpl service;
+    private volatile long overdueWindowHours = TicketServiceImpl.DEFAULT_OVERDUE_WINDOW_HOURS;
+    private volatile long queryCacheSize = TicketServiceImpl.DEFAULT_QUERY_CACHE_SIZE;
+    // Guarded by this
+    private Thread starter;
+    private AsyncTicketServiceImpl asyncService;
+    private ScheduledExecutorService checkpoints;
+    private TicketEventWhiteboard eventListeners;
+    private ObjectName metricsMBean;
+
+    // onReady is called on the startup thread once calls no longer wait
+    TicketServiceHost(BundleContext context, Function<String, String> settings, Consumer<TicketServiceHost> onReady) {
+        this.context = context;
+        this.settings = settings;
+        this.onReady = onReady;
+        String metricsEnabled = settings.apply(METRICS_ENABLED);
+        this.metrics = metricsEnabled == null || Boolean.parseBoolean(metricsEnabled.trim())
+                ? new TicketMetricsImpl(this::gauges)
+                : null;
+    }
+
+    TicketService ticketService() {
+        start();
+        return pending;
+    }
+
+    synchronized AsyncTicketService asyncTicketService() {
+        start();
+        if (asyncService == null) {
+            asyncService = createAsyncService();
+        }
+        return asyncService;
+    }
+
+    boolean hasMetrics() {
+        return metrics != null;
+    }
+
+    TicketMetrics metrics() {
+        start();
+        return metrics;
+    }
+
+    boolean isReady() {
+        return pending.isReady();
+    }
+
+    long getRecoveryMillis() {
+        TicketServiceImpl started = service;
+        return started != null ? started.getLastRecoveryMillis() : 0;
+    }
+
+    // Applied right away once started, otherwise when startup gets there
+    void configure(long overdueWindowHours, long queryCacheSize) {
+        this.overdueWindowHours = overdueWindowHours;
+        this.queryCacheSize = queryCacheSize;
+        TicketServiceImpl started = service;
+        if (started != null) {
+            applyConfiguration(started);
+        }
+    }
+
+    private void applyConfiguration(TicketServiceImpl target) {
+        target.setOverdueWindow(overdueWindowHours, TimeUnit.HOURS);
+        target.setQueryCacheSize(queryCacheSize);
+    }
+
+    // Starts building the service in the background; later calls do nothing
+    synchronized void start() {
+        if (starter != null) {
+            return;
+        }
+        starter = new Thread(this::initialize, "ticket-service-start");
+        starter.setDaemon(true);
+        starter.start();
+    }
+
+    private void initialize() {
+        TicketJournal journal = null;
+        TicketStore store = null;
+        TicketServiceImpl started = null;
+        try {
+            journal = openJournal();
+            store = openStore();
+            String history = settings.apply(EVENT_HISTORY);
+            started = new TicketServiceImpl(journal, store, createIdGenerator(),
+                    history != null ? Integer.parseInt(history.trim()) : TicketEventLog.DEFAULT_HISTORY_SIZE);
+            started.recover();
+            System.out.println("Ticket Service recovered in " + started.getLastRecoveryMillis() + " ms");
+            service = started;
+            applyConfiguration(started);
+            started.warmQueryCache();
+
+            synchronized (this) {
+                if (journal != TicketJournal.NONE) {
+                    scheduleCheckpoints(started);
+                }
+                eventListeners = new TicketEventWhiteboard(context, started);
+                eventListeners.open();
+                if (metrics != null && Boolean.parseBoolean(settings.apply(METRICS_JMX))) {
+                    registerMBean();
+                }
+            }
+        } catch (Exception | LinkageError e) {
+            System.out.println("Ticket Service failed to start: " + e);
+            service = null;
+            release(started, journal, store);
+            pending.failed(e);
+            return;
+        }
+        pending.ready(metrics != null ? new InstrumentedTicketService(started, metrics) : started);
+        System.out.println("Ticket Service started");
+        onReady.accept(this);
+    }
+
+    // Undoes a failed start, so a rebuild can open the same files again. No final snapshot
+    // is taken as in close(), since the recovered state may be incomplete
+    private void release(TicketServiceImpl started, TicketJournal journal, TicketStore store) {
+        try {
+            synchronized (this) {
+                stopBackground();
+            }
+            if (started != null) {
+                started.close();
+            } else {
+                try {
+                    if (journal != null) {
+                        journal.close();
+                    }
+                } finally {
+                    if (store != null) {
+                        store.close();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Ticket Service not fully released after failed start: " + e);
+        }
+    }
+
+    private Map<String, Long> gauges() {
+        TicketServiceImpl started = service;
+        return started != null ? started.getGauges() : Collections.emptyMap();
+    }
+
+    private TicketJournal openJournal() throws Exception {
+        String directory = settings.apply(PERSISTENCE_DIR);
+        if (directory == null || directory.trim().isEmpty()) {
+            return TicketJournal.NONE;
+        }
+        Durability durability = Durability.parse(settings.apply(PERSISTENCE_DURABILITY));
+        System.out.println("Ticket persistence enabled in " + directory + " (" + durability + ")");
+        return LogTicketJournal.open(Paths.get(directory.trim()), durability);
+    }
+
+    private AsyncTicketServiceImpl createAsyncService() {
+        String virtual = settings.apply(ASYNC_VIRTUAL_THREADS);
+        String threads = settings.apply(ASYNC_THREADS);
+        String maxPending = settings.apply(ASYNC_MAX_PENDING);
+        AsyncTicketServiceImpl async = new AsyncTicketServiceImpl(pending,
+                threads != null ? Integer.parseInt(threads.trim()) : AsyncTicketServiceImpl.DEFAULT_THREADS,
+                maxPending != null ? Integer.parseInt(maxPending.trim()) : AsyncTicketServiceImpl.DEFAULT_MAX_PENDING,
+                virtual == null || Boolean.parseBoolean(virtual.trim()));
+        System.out.println("Async Ticket Service using " + (async.usesVirtualThreads() ? "virtual threads" : "platform threads"));
+        return async;
+    }
+
+    private IdGenerator createIdGenerator() throws Exception {
+        String type = settings.apply(ID_GENERATOR);
+        if (type == null || type.trim().isEmpty() || type.trim().equalsIgnoreCase("time")) {
+            String node = settings.apply(NODE_ID);
+            return node != null ? new TimeOrderedIdGenerator(Integer.parseInt(node.trim())) : new TimeOrderedIdGenerator();
+        }
+        if (type.trim().equalsIgnoreCase("uuid")) {
+            return new RandomIdGenerator();
+        }
+        return (IdGenerator) getClass().getClassLoader().loadClass(type.trim()).getDeclaredConstructor().newInstance();
+    }
+
+    private TicketStore openStore() throws Exception {
+        String type = settings.apply(STORE);
+        if (type == null || type.trim().isEmpty() || type.trim().equalsIgnoreCase("heap")) {
+            return new HeapTicketStore();
+        }
+        if (!type.trim().equalsIgnoreCase("mapped")) {
+            throw new IllegalArgumentException("Unknown ticket store: " + type);
+        }
+        Path directory;
+        String configured = settings.apply(STORE_DIR);
+        String persistence = settings.apply(PERSISTENCE_DIR);
+        if (configured != null && !configured.trim().isEmpty()) {
+            directory = Paths.get(configured.trim());
+        } else if (persistence != null && !persistence.trim().isEmpty()) {
+            directory = Paths.get(persistence.trim(), "store");
+        } else {
+            directory = Files.createTempDirectory("ticket-store");
+        }
+        String cacheSize = settings.apply(STORE_CACHE_SIZE);
+        System.out.println("Ticket store memory-mapped in " + directory);
+        return new MappedTicketStore(directory,
+                cacheSize != null ? Integer.parseInt(cacheSize.trim()) : MappedTicketStore.DEFAULT_CACHE_SIZE);
+    }
+
+    private void scheduleCheckpoints(TicketServiceImpl target) {
+        String configured = settings.apply(SNAPSHOT_INTERVAL);
+        long interval = configured != null ? Long.parseLong(configured.trim()) : DEFAULT_SNAPSHOT_INTERVAL_SECONDS;
+        if (interval <= 0) {
+            return;
+        }
+        checkpoints = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ticket-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpoints.scheduleWithFixedDelay(() -> {
+            try {
+                target.checkpoint();
+            } catch (Exception e) {
+                System.out.println("Ticket snapshot failed: " + e);
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private void registerMBean() {
+        try {
+            ObjectName name = new ObjectName(METRICS_MBEAN_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            metricsMBean = name;
+        } catch (Exception e) {
+            System.out.println("Ticket metrics not registered with JMX: " + e);
+        }
+    }
+
+    // Called holding this
+    private void stopBackground() throws InterruptedException {
+        if (eventListeners != null) {
+            eventListeners.close();
+            eventListeners = null;
+        }
+        if (metricsMBean != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsMBean);
+            } catch (Exception e) {
+                System.out.println("Ticket metrics MBean not unregistered: " + e);
+            }
+            metricsMBean = null;
+        }
+        if (checkpoints != null) {
+            checkpoints.shutdown();
+            checkpoints.awaitTermination(30, TimeUnit.SECONDS);
+            checkpoints = null;
+        }
+    }
+
+    // Call after the services are unregistered; waits for a startup in progress to finish first
+    void close() throws Exception {
+        Thread running;
+        synchronized (this) {
+            running = starter;
+        }
+        if (running != null) {
+            running.join();
+        }
+        synchronized (this) {
+            stopBackground();
+            if (asyncService != null) {
+                asyncService.close();
+                asyncService = null;
+            }
+        }
+        TicketServiceImpl started = service;
+        if (started != null) {
+            // A final snapshot keeps the next start from replaying this session's log
+            try {
+                started.checkpoint();
+            } finally {
+                started.close();
+            }
+        }
+    }
+}
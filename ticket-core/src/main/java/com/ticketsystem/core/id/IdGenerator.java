@@ -0,0 +1,9 @@
+package com.ticketsystem.core.id;
+
+/**
+ * Source of ticket and reply ids. Implementations must be thread-safe and must
+ * return canonical lowercase UUID strings, which the memory-mapped store relies on.
+ */
+public interface IdGenerator {
+    String nextId();
+}
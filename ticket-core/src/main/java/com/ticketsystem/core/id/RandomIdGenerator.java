@@ -0,0 +1,13 @@
+package com.ticketsystem.core.id;
+
+import java.util.UUID;
+
+/**
+ * Random (version 4) UUIDs from the shared SecureRandom behind {@link UUID#randomUUID()}.
+ */
+public class RandomIdGenerator implements IdGenerator {
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.ticketsystem.core.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered ids in the version 7 UUID layout, so they sort by creation time
+ * both as UUIDs and as strings:
+ *
+ * <pre>
+ * 48 bits  epoch millis
+ *  4 bits  version (7)
+ * 16 bits  sequence within the millisecond
+ *  2 bits  variant
+ * 16 bits  node id
+ * 42 bits  random
+ * </pre>
+ *
+ * The millisecond and sequence form one counter advanced with a CAS, so ids are
+ * strictly increasing per node without locking; a burst of more than 65536 ids
+ * in one millisecond borrows from the next one instead of waiting, and a clock
+ * that steps back does not reorder ids. The node id lets several instances mint
+ * ids without coordination, and the random bits come from ThreadLocalRandom,
+ * so there is no shared SecureRandom.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+    public static final int MAX_NODE_ID = 0xFFFF;
+
+    private static final int SEQUENCE_BITS = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long node;
+    // epoch millis << SEQUENCE_BITS | sequence of the last id
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeOrderedIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.node = nodeId;
+    }
+
+    // A random node id, for a single instance or when collisions are left to the random bits
+    public TimeOrderedIdGenerator() {
+        this(ThreadLocalRandom.current().nextInt(MAX_NODE_ID + 1));
+    }
+
+    @Override
+    public String nextId() {
+        long floor = System.currentTimeMillis() << SEQUENCE_BITS;
+        long stamp = last.accumulateAndGet(floor, (previous, now) -> Math.max(previous + 1, now));
+        long millis = stamp >>> SEQUENCE_BITS;
+        long sequence = stamp & ((1L << SEQUENCE_BITS) - 1);
+
+        // Version 7 after the millis; the top 12 sequence bits fill the rest of the high half
+        long msb = (millis << 16) | 0x7000L | (sequence >>> 4);
+        long lsb = 0x8000000000000000L
+                | (sequence & 0xF) << 58
+                | node << 42
+                | ThreadLocalRandom.current().nextLong() & ((1L << 42) - 1);
+        return format(msb, lsb);
+    }
+
+    public int getNodeId() {
+        return (int) node;
+    }
+
+    // Same text as UUID.toString, without building the UUID
+    private static String format(long msb, long lsb) {
+        char[] chars = new char[36];
+        hex(chars, 0, msb >>> 32, 8);
+        chars[8] = '-';
+        hex(chars, 9, msb >>> 16, 4);
+        chars[13] = '-';
+        hex(chars, 14, msb, 4);
+        chars[18] = '-';
+        hex(chars, 19, lsb >>> 48, 4);
+        chars[23] = '-';
+        hex(chars, 24, lsb, 12);
+        return new String(chars);
+    }
+
+    private static void hex(char[] chars, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
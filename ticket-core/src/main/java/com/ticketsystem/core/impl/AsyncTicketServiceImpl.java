@@ -0,0 +1,317 @@
+package com.ticketsystem.core.impl;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.ReplyDraft;
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketDraft;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.User;
+import com.ticketsystem.api.query.QueryPlan;
+import com.ticketsystem.api.query.TicketQuery;
+import com.ticketsystem.api.service.AsyncTicketService;
+import com.ticketsystem.api.service.BulkResult;
+import com.ticketsystem.api.service.TicketFilter;
+import com.ticketsystem.api.service.TicketPage;
+import com.ticketsystem.api.service.TicketService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the calls of a {@link TicketService} on an executor and completes a
+ * future with each result. Calls run on virtual threads when the JDK has them
+ * (21+), otherwise on a fixed pool of platform threads. At most maxPending
+ * calls are queued or running at once; further calls fail fast with
+ * RejectedExecutionException instead of growing the queue.
+ */
+public class AsyncTicketServiceImpl implements AsyncTicketService, AutoCloseable {
+    public static final int DEFAULT_THREADS = 16;
+    public static final int DEFAULT_MAX_PENDING = 1024;
+
+    private final TicketService service;
+    private final ExecutorService executor;
+    private final Semaphore pending;
+    private final int maxPending;
+    private final boolean virtual;
+
+    public AsyncTicketServiceImpl(TicketService service) {
+        this(service, DEFAULT_THREADS, DEFAULT_MAX_PENDING, true);
+    }
+
+    /**
+     * @param threads    platform threads used when virtual threads are unavailable or not wanted
+     * @param maxPending calls allowed to be queued or running at once
+     */
+    public AsyncTicketServiceImpl(TicketService service, int threads, int maxPending, boolean virtualThreads) {
+        if (threads < 1 || maxPending < 1) {
+            throw new IllegalArgumentException("Thread count and pending limit must be positive");
+        }
+        this.service = service;
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+        ExecutorService virtualExecutor = virtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : newPlatformThreadExecutor(threads);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor, looked up at runtime since the bundle targets Java 11
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ticket-async-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtual;
+    }
+
+    // Calls queued or running right now
+    public int getPendingCount() {
+        return maxPending - pending.availablePermits();
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!pending.tryAcquire()) {
+            future.completeExceptionally(new RejectedExecutionException(
+                    "Too many pending ticket operations (" + maxPending + ")"));
+            return future;
+        }
+        try {
+            executor.execute(() -> {
+                T result;
+                try {
+                    result = operation.get();
+                } catch (Throwable e) {
+                    pending.release();
+                    future.completeExceptionally(e);
+                    return;
+                }
+                // Released first, so dependent stages running here can submit again
+                pending.release();
+                future.complete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private CompletableFuture<Void> run(Runnable operation) {
+        return call(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Ticket> createTicket(String title, String description) {
+        return call(() -> service.createTicket(title, description));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateTicket(Ticket ticket) {
+        return run(() -> service.updateTicket(ticket));
+    }
+
+    @Override
+    public CompletableFuture<Void> assignTicket(String ticketId, String userId) {
+        return run(() -> service.assignTicket(ticketId, userId));
+    }
+
+    @Override
+    public CompletableFuture<Long> updateTicket(Ticket ticket, long expectedVersion) {
+        return call(() -> service.updateTicket(ticket, expectedVersion));
+    }
+
+    @Override
+    public CompletableFuture<Long> assignTicket(String ticketId, String userId, long expectedVersion) {
+        return call(() -> service.assignTicket(ticketId, userId, expectedVersion));
+    }
+
+    @Override
+    public CompletableFuture<Reply> addReply(String ticketId, String content, String parentReplyId) {
+        return call(() -> service.addReply(ticketId, content, parentReplyId));
+    }
+
+    @Override
+    public CompletableFuture<Void> editReply(String ticketId, String replyId, String newContent) {
+        return run(() -> service.editReply(ticketId, replyId, newContent));
+    }
+
+    @Override
+    public CompletableFuture<Void> resolveTicket(String ticketId) {
+        return run(() -> service.resolveTicket(ticketId));
+    }
+
+    @Override
+    public CompletableFuture<BulkResult<Ticket>> createTickets(List<TicketDraft> drafts) {
+        return call(() -> service.createTickets(drafts));
+    }
+
+    @Override
+    public CompletableFuture<BulkResult<Reply>> addReplies(String ticketId, List<ReplyDraft> drafts) {
+        return call(() -> service.addReplies(ticketId, drafts));
+    }
+
+    @Override
+    public CompletableFuture<BulkResult<Long>> assignTickets(Map<String, String> assignments) {
+        return call(() -> service.assignTickets(assignments));
+    }
+
+    @Override
+    public CompletableFuture<BulkResult<Long>> resolveTickets(Collection<String> ticketIds) {
+        return call(() -> service.resolveTickets(ticketIds));
+    }
+
+    @Override
+    public CompletableFuture<User> registerUser(User user) {
+        return call(() -> service.registerUser(user));
+    }
+
+    @Override
+    public CompletableFuture<User> getUser(String userId) {
+        return call(() -> service.getUser(userId));
+    }
+
+    @Override
+    public CompletableFuture<Ticket> getTicket(String id) {
+        return call(() -> service.getTicket(id));
+    }
+
+    @Override
+    public CompletableFuture<List<Ticket>> getAllTickets() {
+        return call(service::getAllTickets);
+    }
+
+    @Override
+    public CompletableFuture<List<Ticket>> getTicketsByStatus(String status) {
+        return call(() -> service.getTicketsByStatus(status));
+    }
+
+    @Override
+    public CompletableFuture<List<Ticket>> getTicketsByAssignee(String userId) {
+        return call(() -> service.getTicketsByAssignee(userId));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, List<Ticket>>> getTicketsByDepartment() {
+        return call(service::getTicketsByDepartment);
+    }
+
+    @Override
+    public CompletableFuture<List<Ticket>> searchTickets(String searchTerm) {
+        return call(() -> service.searchTickets(searchTerm));
+    }
+
+    @Override
+    public CompletableFuture<List<Ticket>> searchTickets(String query, int offset, int limit) {
+        return call(() -> service.searchTickets(query, offset, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<Reply>> getTicketRepliesTree(String ticketId) {
+        return call(() -> service.getTicketRepliesTree(ticketId));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Integer>> getTicketStatistics() {
+        return call(service::getTicketStatistics);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Integer>> getOpenTicketCountsByAssignee() {
+        return call(service::getOpenTicketCountsByAssignee);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Integer>> getOpenTicketCountsByDepartment() {
+        return call(service::getOpenTicketCountsByDepartment);
+    }
+
+    @Override
+    public CompletableFuture<List<Ticket>> getRecentTickets(int limit) {
+        return call(() -> service.getRecentTickets(limit));
+    }
+
+    @Override
+    public CompletableFuture<List<Ticket>> getUnassignedTickets() {
+        return call(service::getUnassignedTickets);
+    }
+
+    @Override
+    public CompletableFuture<List<Ticket>> getOverdueTickets() {
+        return call(service::getOverdueTickets);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Long>> getQueryCacheStatistics() {
+        return call(service::getQueryCacheStatistics);
+    }
+
+    @Override
+    public CompletableFuture<TicketPage> page(TicketFilter filter, String afterId, int limit) {
+        return call(() -> service.page(filter, afterId, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<Ticket>> query(TicketQuery query) {
+        return call(() -> service.query(query));
+    }
+
+    @Override
+    public CompletableFuture<QueryPlan> explain(TicketQuery query) {
+        return call(() -> service.explain(query));
+    }
+
+    @Override
+    public CompletableFuture<Long> getLastEventSequence() {
+        return call(service::getLastEventSequence);
+    }
+
+    @Override
+    public CompletableFuture<List<TicketEvent>> getEventsAfter(long sequence, int limit) {
+        return call(() -> service.getEventsAfter(sequence, limit));
+    }
+
+    @Override
+    public CompletableFuture<TicketSnapshot> getTicketSnapshot(String id) {
+        return call(() -> service.getTicketSnapshot(id));
+    }
+
+    @Override
+    public CompletableFuture<List<TicketSnapshot>> getTicketSnapshots() {
+        return call(service::getTicketSnapshots);
+    }
+
+    // Stops taking calls and waits for the pending ones, so their writes reach the journal
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.ticketsystem.core.impl;
+
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.TicketStatus;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded cache of view results, such as the tickets with a status or of an
+ * assignee. Results hold immutable snapshots, so every hit can hand out fresh
+ * Ticket copies, and their size is counted in tickets, an empty one as one
+ * ticket. A ticket change
+ * invalidates exactly the views the ticket was or is in, once the new version
+ * is published.
+ * <p>
+ * Nothing here takes a lock on the read or write path. Every view has a slot
+ * with a generation that each invalidation bumps. A result is stamped with the
+ * generation seen before it was loaded and only counts as a hit while the
+ * generation is unchanged, so a load that overlapped a change is never served.
+ * When the cache is over capacity, one loader at a time evicts with a CLOCK
+ * sweep over the slots: a hit marks its slot as referenced, and the sweep
+ * evicts the first slot not referenced since it last passed.
+ * <p>
+ * A slot leaves the map with its entry, so there are never more slots than
+ * cached views and loads in flight. Whoever stores an entry checks afterwards
+ * that its slot is still in the map, and takes the entry back out if not.
+ */
+class QueryCache {
+    static final String UNASSIGNED = "unassigned";
+    static final String DEPARTMENTS = "departments";
+
+    private static final AtomicReferenceFieldUpdater<Slot, Entry> ENTRY =
+        AtomicReferenceFieldUpdater.newUpdater(Slot.class, Entry.class, "entry");
+    private static final AtomicLongFieldUpdater<Slot> GENERATION =
+        AtomicLongFieldUpdater.newUpdater(Slot.class, "generation");
+
+    // One slot per view cached or being loaded
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final LongAdder cachedTickets = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private volatile long maxTickets;
+    // CLOCK hand, guarded by evicting
+    private final ReentrantLock evicting = new ReentrantLock();
+    private Iterator<Slot> hand;
+
+    QueryCache(long maxTickets) {
+        resize(maxTickets);
+    }
+
+    static String statusKey(TicketStatus status) {
+        return "status:" + status;
+    }
+
+    static String assigneeKey(String assignee) {
+        return "assignee:" + assignee;
+    }
+
+    // The loaded value must not be modified afterwards; weigher counts its tickets
+    @SuppressWarnings("unchecked")
+    <T> T get(String key, Supplier<T> loader, ToIntFunction<T> weigher) {
+        if (maxTickets == 0) {
+            return loader.get();
+        }
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            slot = slots.computeIfAbsent(key, Slot::new);
+        }
+        long stamp = slot.generation;
+        Entry entry = slot.entry;
+        if (entry != null && entry.generation == stamp) {
+            if (!slot.referenced) {
+                slot.referenced = true;
+            }
+            hits.increment();
+            return (T) entry.value;
+        }
+        misses.increment();
+        T value = loader.get();
+        if (value == null || !store(slot, stamp, value, Math.max(1, weigher.applyAsInt(value)))) {
+            // Nothing cached; another load of the view may still store into the slot
+            if (slot.entry == null) {
+                slots.remove(key, slot);
+            }
+        }
+        return value;
+    }
+
+    // Returns whether the entry was stored
+    private boolean store(Slot slot, long stamp, Object value, int weight) {
+        long capacity = maxTickets;
+        if (capacity == 0 || weight > capacity) {
+            return false;
+        }
+        Entry next = new Entry(value, weight, stamp);
+        while (true) {
+            if (slot.generation != stamp) {
+                // Invalidated while loading
+                return false;
+            }
+            Entry current = slot.entry;
+            if (current != null && current.generation == stamp) {
+                // A concurrent load of the same generation got there first
+                return true;
+            }
+            if (ENTRY.compareAndSet(slot, current, next)) {
+                // A stale entry replaced here was never counted as an invalidation
+                cachedTickets.add(weight - (current != null ? current.weight : 0));
+                break;
+            }
+        }
+        if (slots.get(slot.key) != slot) {
+            // Evicted or invalidated while storing
+            remove(slot);
+            return false;
+        }
+        // Marked, so the sweep passes over the new entry once before evicting it
+        slot.referenced = true;
+        if (cachedTickets.sum() > capacity && evicting.tryLock()) {
+            // Loads that find an eviction running leave the excess to it
+            try {
+                evict();
+            } finally {
+                evicting.unlock();
+            }
+        }
+        return true;
+    }
+
+    // Call after the new version is visible to readers; previous is null for a new ticket
+    void ticketChanged(TicketSnapshot previous, TicketSnapshot next) {
+        List<String> keys = new ArrayList<>(6);
+        addViews(keys, previous);
+        addViews(keys, next);
+        invalidate(keys);
+    }
+
+    private static void addViews(List<String> keys, TicketSnapshot ticket) {
+        if (ticket == null) {
+            return;
+        }
+        keys.add(statusKey(ticket.getTicketStatus()));
+        String assignee = TicketIndexes.normalizeAssignee(ticket.getAssignedTo());
+        if (assignee == null) {
+            keys.add(UNASSIGNED);
+        } else {
+            keys.add(assigneeKey(assignee));
+            keys.add(DEPARTMENTS);
+        }
+    }
+
+    void invalidate(List<String> keys) {
+        for (String key : keys) {
+            // A load into a slot no longer in the map never keeps its entry
+            Slot slot = slots.get(key);
+            if (slot != null) {
+                GENERATION.incrementAndGet(slot);
+                slots.remove(key, slot);
+                if (remove(slot)) {
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    private boolean remove(Slot slot) {
+        Entry current = slot.entry;
+        if (current != null && ENTRY.compareAndSet(slot, current, null)) {
+            cachedTickets.add(-current.weight);
+            return true;
+        }
+        return false;
+    }
+
+    // 0 disables the cache
+    void resize(long maxTickets) {
+        if (maxTickets < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maxTickets);
+        }
+        this.maxTickets = maxTickets;
+        evicting.lock();
+        try {
+            evict();
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    // Called holding evicting
+    private void evict() {
+        // Two passes clear every reference mark, so a third finds a victim if there is one
+        int budget = 3 * slots.size() + 1;
+        while (cachedTickets.sum() > maxTickets && budget-- > 0) {
+            if (hand == null || !hand.hasNext()) {
+                hand = slots.values().iterator();
+                if (!hand.hasNext()) {
+                    return;
+                }
+            }
+            Slot slot = hand.next();
+            Entry entry = slot.entry;
+            if (entry == null) {
+                continue;
+            }
+            // Stale entries go first, whatever their mark
+            if (slot.referenced && entry.generation == slot.generation) {
+                slot.referenced = false;
+                continue;
+            }
+            slots.remove(slot.key, slot);
+            if (remove(slot)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    int slotCount() {
+        return slots.size();
+    }
+
+    Map<String, Long> statistics() {
+        long entries = 0;
+        for (Slot slot : slots.values()) {
+            Entry entry = slot.entry;
+            if (entry != null && entry.generation == slot.generation) {
+                entries++;
+            }
+        }
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("hits", hits.sum());
+        statistics.put("misses", misses.sum());
+        statistics.put("evictions", evictions.sum());
+        statistics.put("invalidations", invalidations.sum());
+        statistics.put("entries", entries);
+        statistics.put("cachedTickets", cachedTickets.sum());
+        statistics.put("maxTickets", maxTickets);
+        return statistics;
+    }
+
+    private static final class Slot {
+        final String key;
+        volatile long generation;
+        volatile Entry entry;
+        // Set by hits, cleared by the eviction sweep
+        volatile boolean referenced;
+
+        Slot(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Entry {
+        final Object value;
+        final int weight;
+        final long generation;
+
+        Entry(Object value, int weight, long generation) {
+            this.value = value;
+            this.weight = weight;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.ticketsystem.core.impl;
+
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.TicketStatus;
+import com.ticketsystem.api.query.QueryPlan;
+import com.ticketsystem.api.query.TicketQuery;
+import com.ticketsystem.core.impl.TicketIndexes.CreationKey;
+import com.ticketsystem.core.store.TicketStore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+
+/**
+ * Cost-based planner for {@link TicketQuery}. Every criterion with an index is
+ * an access path with an estimated number of tickets; the cheapest path drives
+ * the query and the other criteria are checked per candidate. All posting
+ * lists except the text index are kept in creation order, so a time range
+ * narrows them by seeking, and several lists of one criterion (statuses,
+ * assignees sharing a prefix) are merged in order, letting a limit stop the
+ * walk early. Text matches are intersected as an id set when building it is
+ * cheaper than tokenizing the candidates. A scan of the creation order is the
+ * fallback when no index applies.
+ */
+class QueryPlanner {
+    // Posting lists are counted up to this many entries; longer ones are costed at their upper bound
+    private static final int COUNT_LIMIT = 4096;
+    // Tokenizing one candidate costs about as much as this many entries of a text id set
+    private static final int TEXT_CHECK_COST = 8;
+
+    private static final Comparator<TicketSnapshot> CREATION_ORDER = Comparator
+        .comparingLong(TicketSnapshot::getCreatedAtMillis)
+        .thenComparing(TicketSnapshot::getId);
+
+    private final TicketIndexes indexes;
+    private final SearchIndex searchIndex;
+    private final TicketStore tickets;
+
+    QueryPlanner(TicketIndexes indexes, SearchIndex searchIndex, TicketStore tickets) {
+        this.indexes = indexes;
+        this.searchIndex = searchIndex;
+        this.tickets = tickets;
+    }
+
+    Plan plan(TicketQuery query) {
+        long total = tickets.size();
+        long from = query.getCreatedFrom();
+        long to = query.getCreatedTo();
+        boolean ranged = query.hasCreationRange();
+        String assignee = TicketIndexes.normalizeAssignee(query.getAssignee());
+        List<Path> paths = new ArrayList<>();
+
+        if (!query.getStatuses().isEmpty()) {
+            List<NavigableMap<CreationKey, String>> lists = new ArrayList<>();
+            long known = 0;
+            for (TicketStatus status : query.getStatuses()) {
+                lists.add(range(indexes.statusPostings(status), from, to));
+                known += indexes.statusCount(status);
+            }
+            long estimate = ranged ? estimate(lists, known) : known;
+            paths.add(new Path("status in " + query.getStatuses(), lists, estimate));
+        }
+        if (assignee != null) {
+            List<NavigableMap<CreationKey, String>> lists =
+                Collections.singletonList(range(indexes.assigneePostings(assignee), from, to));
+            paths.add(new Path("assignee = " + assignee, lists, estimate(lists, total)));
+        }
+        if (query.getAssigneePrefix() != null) {
+            List<NavigableMap<CreationKey, String>> lists = new ArrayList<>();
+            for (NavigableMap<CreationKey, String> postings : indexes.assigneePrefixPostings(query.getAssigneePrefix())) {
+                lists.add(range(postings, from, to));
+            }
+            paths.add(new Path("assignee " + query.getAssigneePrefix() + "* (" + lists.size() + " assignees)",
+                lists, estimate(lists, total)));
+        }
+        if (query.getDepartment() != null) {
+            List<NavigableMap<CreationKey, String>> lists = new ArrayList<>();
+            for (NavigableMap<CreationKey, String> postings : indexes.departmentPostings(query.getDepartment())) {
+                lists.add(range(postings, from, to));
+            }
+            paths.add(new Path("department = " + query.getDepartment() + " (" + lists.size() + " assignees)",
+                lists, estimate(lists, total)));
+        }
+        if (query.isUnassigned()) {
+            List<NavigableMap<CreationKey, String>> lists =
+                Collections.singletonList(range(indexes.unassignedPostings(), from, to));
+            paths.add(new Path("unassigned", lists, estimate(lists, total)));
+        }
+        List<String> tokens = SearchIndex.tokenize(query.getText());
+        Path text = null;
+        if (!tokens.isEmpty()) {
+            text = new Path("text \"" + String.join(" ", tokens) + "\"", null, searchIndex.estimate(query.getText()));
+            paths.add(text);
+        }
+        List<NavigableMap<CreationKey, String>> creationPostings =
+            Collections.singletonList(range(indexes.creationPostings(), from, to));
+        Path creation = ranged
+            ? new Path(describeRange(from, to), creationPostings, estimate(creationPostings, total))
+            : new Path("full scan in creation order", creationPostings, total);
+        paths.add(creation);
+
+        Path driving = paths.get(0);
+        for (Path path : paths) {
+            if (path.estimate < driving.estimate) {
+                driving = path;
+            }
+        }
+        boolean intersectText = text != null && driving != text
+            && text.estimate <= driving.estimate * TEXT_CHECK_COST;
+        return new Plan(query, tokens, driving, intersectText,
+            explain(query, paths, driving, text, creation, intersectText));
+    }
+
+    List<TicketSnapshot> run(Plan plan) {
+        int limit = plan.query.getLimit();
+        List<TicketSnapshot> result = new ArrayList<>();
+        if (limit == 0) {
+            return result;
+        }
+        if (plan.driving.postings == null) {
+            // Text hits come unordered, so they are sorted before the limit is applied
+            for (String id : searchIndex.matchingIds(plan.query.getText())) {
+                TicketSnapshot ticket = tickets.get(id);
+                if (ticket != null && matches(plan, ticket, false)) {
+                    result.add(ticket);
+                }
+            }
+            result.sort(CREATION_ORDER);
+            return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        }
+
+        Set<String> textIds = plan.intersectText ? searchIndex.matchingIds(plan.query.getText()) : null;
+        Iterator<String> ids = TicketIndexes.merge(plan.driving.postings);
+        while (result.size() < limit && ids.hasNext()) {
+            String id = ids.next();
+            if (textIds != null && !textIds.contains(id)) {
+                continue;
+            }
+            // Index entries can trail a concurrent update, so every criterion is checked on the ticket
+            TicketSnapshot ticket = tickets.get(id);
+            if (ticket != null && matches(plan, ticket, textIds == null)) {
+                result.add(ticket);
+            }
+        }
+        return result;
+    }
+
+    private boolean matches(Plan plan, TicketSnapshot ticket, boolean checkText) {
+        TicketQuery query = plan.query;
+        if (!query.getStatuses().isEmpty() && !query.getStatuses().contains(ticket.getTicketStatus())) {
+            return false;
+        }
+        String assignee = TicketIndexes.normalizeAssignee(ticket.getAssignedTo());
+        String wanted = TicketIndexes.normalizeAssignee(query.getAssignee());
+        if (wanted != null && !wanted.equals(assignee)) {
+            return false;
+        }
+        if (query.getAssigneePrefix() != null && (assignee == null || !assignee.startsWith(query.getAssigneePrefix()))) {
+            return false;
+        }
+        if (query.getDepartment() != null && (assignee == null || !query.getDepartment().equals(indexes.departmentOf(assignee)))) {
+            return false;
+        }
+        if (query.isUnassigned() && assignee != null) {
+            return false;
+        }
+        long created = ticket.getCreatedAtMillis();
+        if (created < query.getCreatedFrom() || created >= query.getCreatedTo()) {
+            return false;
+        }
+        return !checkText || plan.tokens.isEmpty() || SearchIndex.matches(ticket, plan.tokens);
+    }
+
+    private static NavigableMap<CreationKey, String> range(NavigableMap<CreationKey, String> postings, long from, long to) {
+        if (from == Long.MIN_VALUE && to == Long.MAX_VALUE) {
+            return postings;
+        }
+        return TicketIndexes.createdBetween(postings, from, to);
+    }
+
+    // Counts entries up to COUNT_LIMIT; beyond that the list is costed at the upper bound
+    private static long estimate(List<NavigableMap<CreationKey, String>> lists, long upperBound) {
+        long count = 0;
+        for (NavigableMap<CreationKey, String> postings : lists) {
+            for (Iterator<CreationKey> keys = postings.keySet().iterator(); keys.hasNext(); keys.next()) {
+                if (++count >= COUNT_LIMIT) {
+                    return Math.max(count, upperBound);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static QueryPlan explain(TicketQuery query, List<Path> paths, Path driving, Path text, Path creation,
+                                     boolean intersectText) {
+        List<String> steps = new ArrayList<>();
+        boolean seek = query.hasCreationRange() && driving != creation && driving != text;
+        steps.add("Drive: " + driving.description
+            + (seek ? ", seeking " + creation.description : "")
+            + " [~" + driving.estimate + " tickets]");
+        if (text != null && text != driving) {
+            steps.add(intersectText
+                ? "Intersect: " + text.description + " id set [~" + text.estimate + " tickets]"
+                : "Filter: " + text.description + " per candidate [~" + text.estimate + " tickets]");
+        }
+        for (Path path : paths) {
+            if (path != driving && path != text && path != creation) {
+                steps.add("Filter: " + path.description + " [~" + path.estimate + " tickets]");
+            }
+        }
+        if (driving == text && query.hasCreationRange()) {
+            steps.add("Filter: " + creation.description);
+        }
+        steps.add(driving != text ? "Order: creation order of the driving index" : "Order: sort text hits by creation");
+        if (query.getLimit() != Integer.MAX_VALUE) {
+            steps.add("Limit: " + query.getLimit());
+        }
+        return new QueryPlan(driving.description, driving.estimate, steps);
+    }
+
+    private static String describeRange(long from, long to) {
+        if (from == Long.MIN_VALUE) {
+            return "created < " + Instant.ofEpochMilli(to);
+        }
+        if (to == Long.MAX_VALUE) {
+            return "created >= " + Instant.ofEpochMilli(from);
+        }
+        return "created in [" + Instant.ofEpochMilli(from) + ", " + Instant.ofEpochMilli(to) + ")";
+    }
+
+    // An index that can produce the candidates of one criterion; text hits have no postings list
+    private static final class Path {
+        final String description;
+        final List<NavigableMap<CreationKey, String>> postings;
+        final long estimate;
+
+        Path(String description, List<NavigableMap<CreationKey, String>> postings, long estimate) {
+            this.description = description;
+            this.postings = postings;
+            this.estimate = estimate;
+        }
+    }
+
+    static final class Plan {
+        final TicketQuery query;
+        final List<String> tokens;
+        final Path driving;
+        final boolean intersectText;
+        final QueryPlan explain;
+
+        Plan(TicketQuery query, List<String> tokens, Path driving, boolean intersectText, QueryPlan explain) {
+            this.query = query;
+            this.tokens = tokens;
+            this.driving = driving;
+            this.intersectText = intersectText;
+            this.explain = explain;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ticketsystem.core.impl;
+
+import com.ticketsystem.api.model.Reply;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * Stored form of a reply: immutable, with epoch-millis timestamps (0 = not set)
+ * instead of Dates and no children list. Replies handed to callers are built from it.
+ */
+final class ReplyRecord {
+    final String id;
+    final String content;
+    final String parentId;
+    final long timestamp;
+    final long lastEditedAt;
+
+    private ReplyRecord(String id, String content, String parentId, long timestamp, long lastEditedAt) {
+        this.id = id;
+        this.content = content;
+        this.parentId = parentId;
+        this.timestamp = timestamp;
+        this.lastEditedAt = lastEditedAt;
+    }
+
+    static ReplyRecord of(Reply reply) {
+        return new ReplyRecord(reply.getId(), reply.getContent(), reply.getParentId(),
+                millis(reply.getTimestamp()), millis(reply.getLastEditedAt()));
+    }
+
+    ReplyRecord edited(String newContent, long editedAt) {
+        return new ReplyRecord(id, newContent, parentId, timestamp, editedAt);
+    }
+
+    // Detached copy with an empty children list
+    Reply toReply() {
+        Reply reply = new Reply();
+        reply.setId(id);
+        reply.setContent(content);
+        reply.setParentId(parentId);
+        reply.setTimestamp(timestamp != 0 ? new Date(timestamp) : null);
+        reply.setLastEditedAt(lastEditedAt != 0 ? new Date(lastEditedAt) : null);
+        reply.setChildren(new ArrayList<>());
+        return reply;
+    }
+
+    private static long millis(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ticketsystem.core.impl;
+
+import com.ticketsystem.api.model.Reply;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Replies of one ticket, indexed by id and by parent. Appends and reads are
+ * lock-free: the arrival log is a lock-free queue, and each parent's children
+ * sit in a skip list ordered by timestamp, so building the tree never sorts.
+ * Replies are stored as immutable records; edits publish a new record.
+ */
+class ReplyThread {
+    private static final String ROOT = "";
+
+    private final Queue<String> log = new ConcurrentLinkedQueue<>();
+    private final Map<String, ReplyRecord> byId = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Position, String>> children = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    void add(Reply reply) {
+        ReplyRecord stored = ReplyRecord.of(reply);
+        byId.put(stored.id, stored);
+        link(stored);
+    }
+
+    // Upsert used by journal replay: a known id takes the new content, an unknown one is added
+    void restore(Reply reply) {
+        ReplyRecord stored = ReplyRecord.of(reply);
+        if (byId.put(stored.id, stored) == null) {
+            link(stored);
+        }
+    }
+
+    private void link(ReplyRecord stored) {
+        children.computeIfAbsent(parentKey(stored.parentId), k -> new ConcurrentSkipListMap<>())
+            .put(new Position(stored.timestamp, sequence.getAndIncrement()), stored.id);
+        log.add(stored.id);
+    }
+
+    // The listener sees the new version before it becomes visible, while the reply is still locked
+    boolean edit(String replyId, String content, long editedAt, Consumer<Reply> onEdited) {
+        ReplyRecord edited = byId.computeIfPresent(replyId, (id, current) -> {
+            ReplyRecord next = current.edited(content, editedAt);
+            onEdited.accept(next.toReply());
+            return next;
+        });
+        return edited != null;
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    // Flat list in arrival order
+    List<Reply> replies() {
+        List<Reply> result = new ArrayList<>();
+        for (String id : log) {
+            ReplyRecord reply = byId.get(id);
+            if (reply != null) {
+                result.add(reply.toReply());
+            }
+        }
+        return result;
+    }
+
+    List<Reply> tree() {
+        return copyChildren(ROOT);
+    }
+
+    private List<Reply> copyChildren(String parentKey) {
+        ConcurrentSkipListMap<Position, String> siblings = children.get(parentKey);
+        if (siblings == null) {
+            return new ArrayList<>();
+        }
+        List<Reply> copies = new ArrayList<>();
+        for (String id : siblings.values()) {
+            Reply copy = byId.get(id).toReply();
+            copy.setChildren(copyChildren(id));
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static String parentKey(String parentId) {
+        return parentId != null ? parentId : ROOT;
+    }
+
+    // Timestamp order; the arrival sequence breaks ties within the same millisecond
+    private static final class Position implements Comparable<Position> {
+        final long timestamp;
+        final long sequence;
+
+        Position(long timestamp, long sequence) {
+            this.timestamp = timestamp;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            int byTime = Long.compare(timestamp, other.timestamp);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
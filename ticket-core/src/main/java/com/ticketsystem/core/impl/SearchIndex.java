@@ -0,0 +1,249 @@
+package com.ticketsystem.core.impl;
+
+import com.ticketsystem.api.model.TicketSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tokenized inverted index over ticket titles and descriptions. Every query
+ * token is matched as a term prefix, tokens are combined with AND and hits are
+ * ranked by a tf-idf style score.
+ */
+class SearchIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MAX_ESTIMATED_TERMS = 256;
+
+    private static final Comparator<Hit> RANKING =
+        Comparator.comparingDouble((Hit hit) -> hit.score).reversed().thenComparing(hit -> hit.id);
+
+    // term -> (ticket id -> weighted term frequency). Empty posting lists are left in
+    // place: dropping them would race with a concurrent add for the same term.
+    private final ConcurrentSkipListMap<String, Map<String, Integer>> postings = new ConcurrentSkipListMap<>();
+    private final AtomicInteger documentCount = new AtomicInteger();
+
+    // Same publication contract as TicketIndexes.update: previous is null for a new ticket
+    void update(TicketSnapshot previous, TicketSnapshot current) {
+        if (previous != null
+                && Objects.equals(previous.getTitle(), current.getTitle())
+                && Objects.equals(previous.getDescription(), current.getDescription())) {
+            return;
+        }
+
+        String id = current.getId();
+        Map<String, Integer> terms = terms(current);
+        if (previous == null) {
+            documentCount.incrementAndGet();
+        } else {
+            // The previous terms are re-derived rather than stored per ticket
+            for (String term : terms(previous).keySet()) {
+                if (!terms.containsKey(term)) {
+                    Map<String, Integer> ids = postings.get(term);
+                    if (ids != null) {
+                        ids.remove(id);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), t -> new ConcurrentHashMap<>())
+                .put(id, term.getValue());
+        }
+    }
+
+    /**
+     * Returns the ids ranked {@code offset} to {@code offset + limit} for the query, or
+     * {@code null} when the query holds no terms and therefore matches everything.
+     */
+    List<String> search(String query, int offset, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Double> scores = null;
+        for (String token : tokens) {
+            Map<String, Double> matches = prefixMatches(token, scores != null ? scores.keySet() : null);
+            if (scores != null) {
+                Map<String, Double> previous = scores;
+                matches.replaceAll((id, score) -> score + previous.get(id));
+            }
+            scores = matches;
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        return rank(scores, offset, limit);
+    }
+
+    /**
+     * Unranked ids holding every query token as a term prefix, or null when the
+     * query holds no terms. The rarest token is matched first, so the later ones
+     * only probe its hits.
+     */
+    Set<String> matchingIds(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        tokens.sort(Comparator.comparingLong(this::postingCount));
+        Set<String> ids = null;
+        for (String token : tokens) {
+            ids = prefixMatches(token, ids).keySet();
+            if (ids.isEmpty()) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    // Upper bound of the matches of a query: the postings of its rarest token, or -1 without terms
+    long estimate(String query) {
+        long estimate = -1;
+        for (String token : tokenize(query)) {
+            long count = postingCount(token);
+            estimate = estimate < 0 ? count : Math.min(estimate, count);
+        }
+        return estimate;
+    }
+
+    // Distinct terms indexed so far, including emptied ones; counting walks the skip list
+    int termCount() {
+        return postings.size();
+    }
+
+    // Postings of every term starting with the token; a short prefix over many terms counts as every ticket
+    private long postingCount(String token) {
+        long count = 0;
+        int terms = 0;
+        for (Map<String, Integer> ids : postings.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+            if (++terms > MAX_ESTIMATED_TERMS) {
+                return Math.max(count, documentCount.get());
+            }
+            count += ids.size();
+        }
+        return count;
+    }
+
+    // Whether every query token starts a term of the ticket, for checking candidates found by other indexes
+    static boolean matches(TicketSnapshot ticket, List<String> tokens) {
+        Map<String, Integer> terms = terms(ticket);
+        for (String token : tokens) {
+            boolean found = false;
+            for (String term : terms.keySet()) {
+                if (term.startsWith(token)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Scores every ticket holding a term starting with the token, restricted to candidates when given
+    private Map<String, Double> prefixMatches(String token, Set<String> candidates) {
+        Map<String, Double> matches = new HashMap<>();
+        int documents = Math.max(1, documentCount.get());
+        ConcurrentNavigableMap<String, Map<String, Integer>> terms =
+            postings.subMap(token, true, token + Character.MAX_VALUE, false);
+
+        for (Map<String, Integer> ids : terms.values()) {
+            if (ids.isEmpty()) {
+                continue;
+            }
+            double idf = Math.log(1.0 + (double) documents / ids.size());
+            for (Map.Entry<String, Integer> posting : ids.entrySet()) {
+                if (candidates == null || candidates.contains(posting.getKey())) {
+                    matches.merge(posting.getKey(), posting.getValue() * idf, Double::sum);
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Keeps only offset + limit hits on a bounded heap instead of sorting every match
+    private static List<String> rank(Map<String, Double> scores, int offset, int limit) {
+        int window = (int) Math.min((long) offset + limit, scores.size());
+        if (offset >= window) {
+            return Collections.emptyList();
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(window, RANKING.reversed());
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            Hit hit = new Hit(entry.getKey(), entry.getValue());
+            if (top.size() < window) {
+                top.add(hit);
+            } else if (RANKING.compare(hit, top.peek()) < 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        List<String> page = new ArrayList<>(window - offset);
+        for (int i = offset; i < window; i++) {
+            page.add(ranked.get(i).id);
+        }
+        return page;
+    }
+
+    private static Map<String, Integer> terms(TicketSnapshot ticket) {
+        Map<String, Integer> terms = new HashMap<>();
+        collectTerms(ticket.getTitle(), TITLE_WEIGHT, terms);
+        collectTerms(ticket.getDescription(), DESCRIPTION_WEIGHT, terms);
+        return terms;
+    }
+
+    private static void collectTerms(String text, int weight, Map<String, Integer> terms) {
+        for (String term : tokenize(text)) {
+            terms.merge(term, weight, Integer::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private static final class Hit {
+        final String id;
+        final double score;
+
+        Hit(String id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
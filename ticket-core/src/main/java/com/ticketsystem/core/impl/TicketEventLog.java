@@ -0,0 +1,293 @@
+package com.ticketsystem.core.impl;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.event.TicketEventListener;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.core.persistence.TicketJournal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sequenced history of ticket change events and their delivery to listeners.
+ * Events are numbered and journaled under one lock, so the journal and the
+ * history hold them in sequence order; the newest events stay in a ring
+ * buffer. Every subscription reads the ring from its own cursor on a delivery
+ * thread, a bounded batch at a time, so writers never wait for listeners and a
+ * slow listener costs no memory beyond its batch. A listener that falls
+ * further behind than the ring holds is told which events it missed.
+ * <p>
+ * Readers only see an event once the write that appended it has released it,
+ * after the change is visible and durable, and only when every earlier event
+ * is released too. So a listener never gets ahead of {@code getTicket}, and
+ * never sees a sequence number that a crash could hand out again. Events of a
+ * write that failed waiting for the journal are dropped instead, and reported
+ * to listeners as missed.
+ */
+public class TicketEventLog implements AutoCloseable {
+    public static final int DEFAULT_HISTORY_SIZE = 10_000;
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private final TicketJournal journal;
+    private final TicketEvent[] ring;
+    // Journal position of each event in the ring, 0 for restored ones
+    private final long[] positions;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService delivery;
+    private long lastSequence;
+    // Guarded by this: readers see events up to released; later ones released out of order wait in releasedAhead
+    private long released;
+    private final Set<Long> releasedAhead = new HashSet<>();
+    private final LongAdder listenerFailures = new LongAdder();
+
+    TicketEventLog(TicketJournal journal, int historySize) {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("Event history size must be positive: " + historySize);
+        }
+        this.journal = journal;
+        this.ring = new TicketEvent[historySize];
+        this.positions = new long[historySize];
+        AtomicInteger count = new AtomicInteger();
+        this.delivery = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ticket-events-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Called while the changed ticket is locked; the event stays hidden from readers until pending is released
+    void append(Pending pending, TicketEvent.Type type, TicketSnapshot ticket, String replyId, long now) {
+        synchronized (this) {
+            TicketEvent event = new TicketEvent(lastSequence + 1, type, ticket.getId(), ticket.getVersion(), replyId,
+                ticket.getAssignedTo(), now);
+            long position = journal.eventSaved(event);
+            pending.add(event.getSequence(), position);
+            lastSequence = event.getSequence();
+            ring[slot(lastSequence)] = event;
+            positions[slot(lastSequence)] = position;
+        }
+    }
+
+    // Called once the write behind the pending events is visible and durable
+    void release(Pending pending) {
+        advance(pending, false);
+    }
+
+    /**
+     * Called instead of {@link #release} when the write behind the pending
+     * events may not be durable. The events are dropped from the history, so
+     * readers skip their sequence numbers and listeners are told they missed
+     * them, and later events are released as usual.
+     */
+    void abandon(Pending pending) {
+        advance(pending, true);
+    }
+
+    private void advance(Pending pending, boolean drop) {
+        if (pending.count == 0) {
+            return;
+        }
+        synchronized (this) {
+            for (int i = 0; i < pending.count; i++) {
+                if (drop) {
+                    int slot = slot(pending.sequences[i]);
+                    if (ring[slot] != null && ring[slot].getSequence() == pending.sequences[i]) {
+                        ring[slot] = null;
+                    }
+                }
+                if (pending.sequences[i] == released + 1) {
+                    released++;
+                } else {
+                    releasedAhead.add(pending.sequences[i]);
+                }
+            }
+            while (!releasedAhead.isEmpty() && releasedAhead.remove(released + 1)) {
+                released++;
+            }
+        }
+        pending.count = 0;
+        for (Subscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    // Recovery: the snapshot and the log tail may repeat events, which are skipped
+    synchronized void restore(TicketEvent event) {
+        if (event.getSequence() <= lastSequence) {
+            return;
+        }
+        lastSequence = event.getSequence();
+        released = lastSequence;
+        ring[slot(lastSequence)] = event;
+        positions[slot(lastSequence)] = 0;
+    }
+
+    // The newest event readers can see
+    public synchronized long lastSequence() {
+        return released;
+    }
+
+    // Released events after the sequence, oldest first; sequences no longer retained are skipped
+    synchronized List<TicketEvent> after(long sequence, int limit) {
+        return range(sequence, limit, released);
+    }
+
+    /**
+     * The retained events for a snapshot at the journal position: the released
+     * ones, and those not yet released that were journaled at or before the
+     * position, since the snapshot holds their changes. Later ones come back
+     * from the log, if their change survived.
+     */
+    synchronized List<TicketEvent> retained(long position) {
+        long last = released;
+        // Positions grow with the sequence, as both are taken under this lock
+        while (last < lastSequence && positions[slot(last + 1)] <= position) {
+            last++;
+        }
+        return range(0, ring.length, last);
+    }
+
+    private List<TicketEvent> range(long sequence, int limit, long last) {
+        long first = Math.max(sequence + 1, lastSequence - ring.length + 1);
+        List<TicketEvent> result = new ArrayList<>((int) Math.min(limit, Math.max(0, last - first + 1)));
+        for (long next = first; next <= last && result.size() < limit; next++) {
+            TicketEvent event = ring[slot(next)];
+            if (event != null && event.getSequence() == next) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % ring.length);
+    }
+
+    /**
+     * Delivers the events after afterSequence to the listener, then every new one.
+     * A negative afterSequence starts with the next event.
+     */
+    public Subscription subscribe(TicketEventListener listener, long afterSequence, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Event buffer size must be positive: " + bufferSize);
+        }
+        Subscription subscription = new Subscription(listener,
+            afterSequence >= 0 ? afterSequence : lastSequence(), bufferSize);
+        subscriptions.add(subscription);
+        subscription.signal();
+        return subscription;
+    }
+
+    // Events a listener threw on, over every subscription
+    long listenerFailures() {
+        return listenerFailures.sum();
+    }
+
+    @Override
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        delivery.shutdown();
+    }
+
+    /**
+     * The events appended by one write, with the journal position to wait for
+     * before releasing them.
+     */
+    static final class Pending {
+        private long[] sequences = new long[1];
+        private int count;
+        private long position;
+
+        private void add(long sequence, long journalPosition) {
+            if (count == sequences.length) {
+                sequences = Arrays.copyOf(sequences, count * 2);
+            }
+            sequences[count++] = sequence;
+            position = journalPosition;
+        }
+
+        // Journal position of the last event appended
+        long position() {
+            return position;
+        }
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final TicketEventListener listener;
+        private final int bufferSize;
+        // Set while a drain is queued or running, so one runs at a time and events stay in order
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long cursor;
+        private volatile boolean closed;
+
+        private Subscription(TicketEventListener listener, long cursor, int bufferSize) {
+            this.listener = listener;
+            this.cursor = cursor;
+            this.bufferSize = bufferSize;
+        }
+
+        // Last sequence handed to the listener
+        public long getCursor() {
+            return cursor;
+        }
+
+        private void signal() {
+            if (closed || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                delivery.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                List<TicketEvent> batch;
+                while (!closed && !(batch = after(cursor, bufferSize)).isEmpty()) {
+                    for (TicketEvent event : batch) {
+                        deliver(event);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // An event appended after the last read signalled while this drain was still scheduled
+            if (!closed && lastSequence() > cursor) {
+                signal();
+            }
+        }
+
+        private void deliver(TicketEvent event) {
+            try {
+                if (event.getSequence() > cursor + 1) {
+                    listener.eventsMissed(cursor + 1, event.getSequence() - 1);
+                }
+                listener.ticketChanged(event);
+            } catch (RuntimeException e) {
+                listenerFailures.increment();
+                System.out.println("Ticket event listener " + listener + " failed on event " + event.getSequence() + ": " + e);
+            }
+            cursor = event.getSequence();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+    }
+}
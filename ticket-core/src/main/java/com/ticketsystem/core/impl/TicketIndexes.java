@@ -0,0 +1,483 @@
+package com.ticketsystem.core.impl;
+
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.TicketStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Secondary indexes over the ticket table: status -> ids, assignee -> ids, the
+ * set of unassigned ids and creation-time order (all and unresolved tickets),
+ * plus per-status and per-assignee open counters. Every id set is kept in
+ * creation order, so a page can resume from any ticket in it. Departments
+ * group assignees rather than tickets: a department view merges the id sets of
+ * its members, so moving a user to another department touches no ticket. Callers publish
+ * each transition from the previous to the current snapshot of a ticket while
+ * holding that ticket's slot, so updates for one ticket never interleave.
+ */
+class TicketIndexes {
+    // Every status has its bucket from the start, so the map itself is never written
+    private final Map<TicketStatus, ConcurrentSkipListMap<CreationKey, String>> byStatus = new EnumMap<>(TicketStatus.class);
+    private final Map<String, ConcurrentSkipListMap<CreationKey, String>> byAssignee = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<CreationKey, String> unassigned = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<CreationKey, String> byCreation = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<CreationKey, String> openByCreation = new ConcurrentSkipListMap<>();
+
+    private final LongAdder[] statusCounts = new LongAdder[TicketStatus.values().length];
+    private final Map<String, LongAdder> openByAssignee = new ConcurrentHashMap<>();
+    // Department of every assignee seen so far, and the members of each department
+    private final Map<String, String> assigneeDepartments = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> departmentMembers = new ConcurrentHashMap<>();
+
+    TicketIndexes() {
+        for (TicketStatus status : TicketStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListMap<>());
+            statusCounts[status.ordinal()] = new LongAdder();
+        }
+    }
+
+    // previous is null for a new ticket
+    void update(TicketSnapshot previous, TicketSnapshot current) {
+        update(previous, current, null);
+    }
+
+    // With a batch, the counter changes wait in it until apply(batch); the id sets change at once
+    void update(TicketSnapshot previous, TicketSnapshot current, CounterBatch batch) {
+        String id = current.getId();
+        TicketStatus status = current.getTicketStatus();
+        String assignee = normalizeAssignee(current.getAssignedTo());
+        CreationKey key = new CreationKey(current.getCreatedAtMillis(), id);
+        TicketStatus oldStatus = previous != null ? previous.getTicketStatus() : null;
+        String oldAssignee = previous != null ? normalizeAssignee(previous.getAssignedTo()) : null;
+        CreationKey oldKey = previous != null ? new CreationKey(previous.getCreatedAtMillis(), id) : null;
+        boolean moved = !key.equals(oldKey);
+
+        // Add to the new bucket before leaving the old one, so readers never miss the ticket
+        if (moved || oldStatus != status) {
+            if (status != null) {
+                byStatus.get(status).put(key, id);
+            }
+            if (oldStatus != null) {
+                byStatus.get(oldStatus).remove(oldKey);
+            }
+        }
+        if (previous == null || oldStatus != status) {
+            countStatus(status, 1, batch);
+            countStatus(oldStatus, -1, batch);
+        }
+        if (moved || !Objects.equals(oldAssignee, assignee)) {
+            if (assignee == null) {
+                unassigned.put(key, id);
+            } else {
+                add(byAssignee, assignee, key, id);
+                if (!assigneeDepartments.containsKey(assignee)) {
+                    assigneeDepartments.computeIfAbsent(assignee, a -> join(defaultDepartment(a), a));
+                }
+            }
+            if (previous != null) {
+                if (oldAssignee == null) {
+                    unassigned.remove(oldKey);
+                } else {
+                    remove(byAssignee, oldAssignee, oldKey);
+                }
+            }
+        }
+
+        if (moved) {
+            byCreation.put(key, id);
+            if (oldKey != null) {
+                byCreation.remove(oldKey);
+            }
+        }
+        CreationKey created = current.getCreatedAtMillis() != 0 ? key : null;
+        CreationKey oldCreated = previous != null && previous.getCreatedAtMillis() != 0 ? oldKey : null;
+        CreationKey oldOpen = previous != null && isOpen(oldStatus) ? oldCreated : null;
+        CreationKey open = isOpen(status) ? created : null;
+        if (!Objects.equals(oldOpen, open)) {
+            if (open != null) {
+                openByCreation.put(open, id);
+            }
+            if (oldOpen != null) {
+                openByCreation.remove(oldOpen);
+            }
+        }
+
+        String oldOpenAssignee = previous != null && isOpen(oldStatus) ? oldAssignee : null;
+        String openAssignee = isOpen(status) ? assignee : null;
+        if (!Objects.equals(oldOpenAssignee, openAssignee)) {
+            countOpen(openAssignee, 1, batch);
+            countOpen(oldOpenAssignee, -1, batch);
+        }
+    }
+
+    void apply(CounterBatch batch) {
+        for (TicketStatus status : TicketStatus.values()) {
+            long delta = batch.statuses[status.ordinal()];
+            if (delta != 0) {
+                statusCounts[status.ordinal()].add(delta);
+            }
+        }
+        batch.openByAssignee.forEach((assignee, delta) -> adjust(openByAssignee, assignee, delta));
+    }
+
+    /**
+     * Moves the assignee to a department; the username prefix is used when the
+     * department is empty. Tickets follow their assignee without being touched.
+     */
+    void setDepartment(String assignee, String department) {
+        String wanted = department != null && !department.isEmpty() ? department : defaultDepartment(assignee);
+        assigneeDepartments.compute(assignee, (a, old) -> {
+            if (!wanted.equals(old)) {
+                join(wanted, a);
+                if (old != null) {
+                    departmentMembers.get(old).remove(a);
+                }
+            }
+            return wanted;
+        });
+    }
+
+    private String join(String department, String assignee) {
+        departmentMembers.computeIfAbsent(department, d -> ConcurrentHashMap.newKeySet()).add(assignee);
+        return department;
+    }
+
+    String departmentOf(String assignee) {
+        String department = assigneeDepartments.get(assignee);
+        return department != null ? department : defaultDepartment(assignee);
+    }
+
+    // Departments that have members; a department keeps its entry once its last member leaves
+    Set<String> departments() {
+        return Collections.unmodifiableSet(departmentMembers.keySet());
+    }
+
+    Set<String> membersOf(String department) {
+        Set<String> members = department != null ? departmentMembers.get(department) : null;
+        return members != null ? Collections.unmodifiableSet(members) : Collections.emptySet();
+    }
+
+    Collection<String> idsWithStatus(TicketStatus status) {
+        return status != null ? byStatus.get(status).values() : Collections.emptySet();
+    }
+
+    Collection<String> idsAssignedTo(String userId) {
+        return bucket(byAssignee, userId).values();
+    }
+
+    Collection<String> unassignedIds() {
+        return unassigned.values();
+    }
+
+    /**
+     * Ids in creation order, starting after the given ticket (from the start
+     * when after is null). The smallest index covering the wanted tickets is
+     * walked, so callers still have to check each ticket against their filter.
+     */
+    Iterator<String> idsInCreationOrder(TicketStatus status, String assignee, String department,
+                                        boolean unassignedOnly, TicketSnapshot after) {
+        List<NavigableMap<CreationKey, String>> lists;
+        if (unassignedOnly) {
+            lists = Collections.singletonList(unassigned);
+        } else if (assignee != null) {
+            lists = Collections.singletonList(bucket(byAssignee, assignee));
+        } else if (department != null) {
+            lists = departmentPostings(department);
+        } else if (status != null) {
+            lists = Collections.singletonList(byStatus.get(status));
+        } else {
+            lists = Collections.singletonList(byCreation);
+        }
+        if (after != null) {
+            CreationKey from = new CreationKey(after.getCreatedAtMillis(), after.getId());
+            List<NavigableMap<CreationKey, String>> remaining = new ArrayList<>(lists.size());
+            for (NavigableMap<CreationKey, String> ids : lists) {
+                remaining.add(ids.tailMap(from, false));
+            }
+            lists = remaining;
+        }
+        return merge(lists);
+    }
+
+    // Newest first
+    Collection<String> idsByCreationDescending() {
+        return byCreation.descendingMap().values();
+    }
+
+    // Unresolved tickets created strictly before the given instant, oldest first
+    Collection<String> openIdsCreatedBefore(long epochMillis) {
+        return openByCreation.headMap(new CreationKey(epochMillis, ""), false).values();
+    }
+
+    // Posting lists for the query planner, all in creation order
+
+    NavigableMap<CreationKey, String> statusPostings(TicketStatus status) {
+        return byStatus.get(status);
+    }
+
+    NavigableMap<CreationKey, String> assigneePostings(String assignee) {
+        return bucket(byAssignee, assignee);
+    }
+
+    List<NavigableMap<CreationKey, String>> assigneePrefixPostings(String prefix) {
+        List<NavigableMap<CreationKey, String>> lists = new ArrayList<>();
+        for (Map.Entry<String, ConcurrentSkipListMap<CreationKey, String>> bucket : byAssignee.entrySet()) {
+            if (bucket.getKey().startsWith(prefix)) {
+                lists.add(bucket.getValue());
+            }
+        }
+        return lists;
+    }
+
+    List<NavigableMap<CreationKey, String>> departmentPostings(String department) {
+        List<NavigableMap<CreationKey, String>> lists = new ArrayList<>();
+        for (String member : membersOf(department)) {
+            lists.add(bucket(byAssignee, member));
+        }
+        return lists;
+    }
+
+    NavigableMap<CreationKey, String> unassignedPostings() {
+        return unassigned;
+    }
+
+    NavigableMap<CreationKey, String> creationPostings() {
+        return byCreation;
+    }
+
+    long statusCount(TicketStatus status) {
+        return statusCounts[status.ordinal()].sum();
+    }
+
+    // Assignees that have had tickets; like departments, an entry stays once its tickets move on
+    int assigneeCount() {
+        return byAssignee.size();
+    }
+
+    // Tickets created in [from, to), by seeking in a list kept in creation order
+    static NavigableMap<CreationKey, String> createdBetween(NavigableMap<CreationKey, String> postings, long from, long to) {
+        if (from >= to) {
+            return Collections.emptyNavigableMap();
+        }
+        return postings.subMap(new CreationKey(from, ""), true, new CreationKey(to, ""), false);
+    }
+
+    Map<String, Integer> statusCounts() {
+        Map<String, Integer> result = new HashMap<>();
+        for (TicketStatus status : TicketStatus.values()) {
+            int count = statusCounts[status.ordinal()].intValue();
+            if (count > 0) {
+                result.put(status.name(), count);
+            }
+        }
+        return result;
+    }
+
+    Map<String, Integer> openCountsByAssignee() {
+        return snapshot(openByAssignee);
+    }
+
+    // Summed over the members on every call, so department moves never have to adjust counters
+    Map<String, Integer> openCountsByDepartment() {
+        Map<String, Integer> result = new HashMap<>();
+        for (Map.Entry<String, Set<String>> department : departmentMembers.entrySet()) {
+            long count = 0;
+            for (String member : department.getValue()) {
+                LongAdder open = openByAssignee.get(member);
+                count += open != null ? open.sum() : 0;
+            }
+            if (count > 0) {
+                result.put(department.getKey(), (int) count);
+            }
+        }
+        return result;
+    }
+
+    static String normalizeAssignee(String assignee) {
+        return assignee == null || assignee.isEmpty() ? null : assignee;
+    }
+
+    // Department of an assignee that is not a registered user, from the "dept.user" naming
+    static String defaultDepartment(String assignee) {
+        int dot = assignee.indexOf('.');
+        return dot < 0 ? assignee : assignee.substring(0, dot);
+    }
+
+    static boolean isOpen(TicketStatus status) {
+        return status == null || status.isOpen();
+    }
+
+    private void countStatus(TicketStatus status, int delta, CounterBatch batch) {
+        if (status == null) {
+            return;
+        }
+        if (batch != null) {
+            batch.statuses[status.ordinal()] += delta;
+        } else {
+            statusCounts[status.ordinal()].add(delta);
+        }
+    }
+
+    private void countOpen(String assignee, int delta, CounterBatch batch) {
+        if (assignee == null) {
+            return;
+        }
+        if (batch != null) {
+            batch.openByAssignee.merge(assignee, (long) delta, Long::sum);
+        } else {
+            adjust(openByAssignee, assignee, delta);
+        }
+    }
+
+    private static void adjust(Map<String, LongAdder> counters, String key, long delta) {
+        if (key != null) {
+            counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        }
+    }
+
+    // Counters that have dropped back to zero are left out, as a full recount would
+    private static Map<String, Integer> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Integer> result = new HashMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            int count = counter.getValue().intValue();
+            if (count > 0) {
+                result.put(counter.getKey(), count);
+            }
+        }
+        return result;
+    }
+
+    private static void add(Map<String, ConcurrentSkipListMap<CreationKey, String>> index, String key,
+                            CreationKey ticket, String id) {
+        index.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>()).put(ticket, id);
+    }
+
+    private static void remove(Map<String, ConcurrentSkipListMap<CreationKey, String>> index, String key,
+                               CreationKey ticket) {
+        ConcurrentSkipListMap<CreationKey, String> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(ticket);
+        }
+    }
+
+    private static NavigableMap<CreationKey, String> bucket(Map<String, ConcurrentSkipListMap<CreationKey, String>> index,
+                                                            String key) {
+        NavigableMap<CreationKey, String> ids = key != null ? index.get(key) : null;
+        return ids != null ? ids : Collections.emptyNavigableMap();
+    }
+
+    // Ids of several creation-ordered lists in one creation order; a ticket caught in two lists comes out once
+    static Iterator<String> merge(List<NavigableMap<CreationKey, String>> lists) {
+        if (lists.size() == 1) {
+            return lists.get(0).values().iterator();
+        }
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, lists.size()), Comparator.comparing(c -> c.head.getKey()));
+        for (NavigableMap<CreationKey, String> postings : lists) {
+            Cursor cursor = new Cursor(postings.entrySet().iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return new Iterator<String>() {
+            private CreationKey last;
+            private String next = fetch();
+
+            private String fetch() {
+                while (!heads.isEmpty()) {
+                    Cursor cursor = heads.poll();
+                    Map.Entry<CreationKey, String> entry = cursor.head;
+                    if (cursor.advance()) {
+                        heads.add(cursor);
+                    }
+                    if (!entry.getKey().equals(last)) {
+                        last = entry.getKey();
+                        return entry.getValue();
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                String id = next;
+                next = fetch();
+                return id;
+            }
+        };
+    }
+
+    private static final class Cursor {
+        final Iterator<Map.Entry<CreationKey, String>> entries;
+        Map.Entry<CreationKey, String> head;
+
+        Cursor(Iterator<Map.Entry<CreationKey, String>> entries) {
+            this.entries = entries;
+        }
+
+        boolean advance() {
+            head = entries.hasNext() ? entries.next() : null;
+            return head != null;
+        }
+    }
+
+    // Counter changes of a bulk operation, summed per key; used by one thread
+    static final class CounterBatch {
+        private final long[] statuses = new long[TicketStatus.values().length];
+        private final Map<String, Long> openByAssignee = new HashMap<>();
+    }
+
+    // Orders by creation instant; the id breaks ties between tickets created in the same millisecond
+    static final class CreationKey implements Comparable<CreationKey> {
+        final long createdAt;
+        final String id;
+
+        CreationKey(long createdAt, String id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(CreationKey other) {
+            int byTime = Long.compare(createdAt, other.createdAt);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CreationKey)) {
+                return false;
+            }
+            CreationKey other = (CreationKey) o;
+            return createdAt == other.createdAt && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(createdAt) * 31 + id.hashCode();
+        }
+    }
+}
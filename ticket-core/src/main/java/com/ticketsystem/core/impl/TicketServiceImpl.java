@@ -1,228 +1,880 @@
 package com.ticketsystem.core.impl;
 
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.event.TicketEventListener;
 import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.TicketStatus;
 import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.ReplyDraft;
+import com.ticketsystem.api.model.TicketDraft;
 import com.ticketsystem.api.model.User;
+import com.ticketsystem.api.query.QueryPlan;
+import com.ticketsystem.api.query.TicketQuery;
+import com.ticketsystem.api.service.BulkResult;
+import com.ticketsystem.api.service.TicketConflictException;
+import com.ticketsystem.api.service.TicketFilter;
+import com.ticketsystem.api.service.TicketPage;
 import com.ticketsystem.api.service.TicketService;
-
+import com.ticketsystem.core.id.IdGenerator;
+import com.ticketsystem.core.id.TimeOrderedIdGenerator;
+import com.ticketsystem.core.persistence.SnapshotStore;
+import com.ticketsystem.core.persistence.TicketJournal;
+import com.ticketsystem.core.store.HeapTicketStore;
+import com.ticketsystem.core.store.TicketStore;
+
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class TicketServiceImpl implements TicketService {
-    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
-    private final Map<String, List<Reply>> replies = new ConcurrentHashMap<>();
+    public static final long DEFAULT_OVERDUE_WINDOW_HOURS = 24;
+    public static final long DEFAULT_QUERY_CACHE_SIZE = 100_000;
+
+    private static final long ANY_VERSION = -1;
+
+    // Holds immutable snapshots only; every write publishes a new version for its id
+    private final TicketStore tickets;
+    // Only tickets that have replies get a thread
+    private final Map<String, ReplyThread> replies = new ConcurrentHashMap<>();
     private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final TicketIndexes indexes = new TicketIndexes();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final QueryPlanner planner;
+    private final TicketEventLog events;
+    private final QueryCache cache = new QueryCache(DEFAULT_QUERY_CACHE_SIZE);
+    private final TicketJournal journal;
+    private final IdGenerator ids;
+    // Every journaled mutation runs inside the gate, so a checkpoint can wait for those in flight
+    private final WriteGate gate = new WriteGate();
+    private volatile long recoveryMillis;
+    private volatile long overdueWindowMillis = TimeUnit.HOURS.toMillis(DEFAULT_OVERDUE_WINDOW_HOURS);
+
+    public TicketServiceImpl() {
+        this(TicketJournal.NONE);
+    }
+
+    public TicketServiceImpl(TicketJournal journal) {
+        this(journal, new HeapTicketStore());
+    }
+
+    public TicketServiceImpl(TicketJournal journal, TicketStore tickets) {
+        this(journal, tickets, new TimeOrderedIdGenerator());
+    }
+
+    public TicketServiceImpl(TicketJournal journal, TicketStore tickets, IdGenerator ids) {
+        this(journal, tickets, ids, TicketEventLog.DEFAULT_HISTORY_SIZE);
+    }
+
+    // eventHistory: change events kept for listeners and getEventsAfter to catch up from
+    public TicketServiceImpl(TicketJournal journal, TicketStore tickets, IdGenerator ids, int eventHistory) {
+        this.journal = journal;
+        this.tickets = tickets;
+        this.ids = ids;
+        this.planner = new QueryPlanner(indexes, searchIndex, tickets);
+        this.events = new TicketEventLog(journal, eventHistory);
+    }
+
+    // Rebuilds tickets, replies and indexes from the journal; call before the service is used
+    public void recover() throws IOException {
+        long started = System.nanoTime();
+        journal.replay(new TicketJournal.RecoveryHandler() {
+            @Override
+            public void restoreTicket(TicketSnapshot ticket) {
+                tickets.compute(ticket.getId(), (id, previous) -> {
+                    // The log tail may repeat older versions of tickets the snapshot already holds
+                    if (previous != null && previous.getVersion() > ticket.getVersion()) {
+                        return previous;
+                    }
+                    indexes.update(previous, ticket);
+                    searchIndex.update(previous, ticket);
+                    return ticket;
+                });
+            }
+
+            @Override
+            public void restoreReply(String ticketId, Reply reply) {
+                if (tickets.get(ticketId) != null) {
+                    replies.computeIfAbsent(ticketId, id -> new ReplyThread()).restore(reply);
+                }
+            }
+
+            @Override
+            public void restoreUser(User user) {
+                users.put(user.getId(), user);
+                indexes.setDepartment(user.getId(), user.getDepartment());
+            }
+
+            @Override
+            public void restoreEvent(TicketEvent event) {
+                events.restore(event);
+            }
+        });
+        recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+
+    // Time the last recover() took, i.e. the restart cost of the journal
+    public long getLastRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    /**
+     * Writes a snapshot of the current state to the journal and compacts the log
+     * it covers. Writers keep running while the maps are copied out: only the
+     * writes already in flight are waited for, and those after the snapshot
+     * position are replayed over it on recovery.
+     */
+    public synchronized void checkpoint() throws IOException {
+        long position = journal.position();
+        gate.drain();
+        journal.checkpoint(position, new SnapshotStore.StateSource() {
+            @Override
+            public Iterable<TicketSnapshot> tickets() {
+                return tickets.stream()::iterator;
+            }
+
+            @Override
+            public List<Reply> replies(String ticketId) {
+                ReplyThread thread = replies.get(ticketId);
+                return thread != null ? thread.replies() : Collections.emptyList();
+            }
+
+            @Override
+            public Iterable<User> users() {
+                return users.values();
+            }
+
+            @Override
+            public Iterable<TicketEvent> events() {
+                return events.retained(position);
+            }
+        });
+    }
+
+    public void close() throws IOException {
+        events.close();
+        try {
+            journal.close();
+        } finally {
+            tickets.close();
+        }
+    }
 
     @Override
     public Ticket createTicket(String title, String description) {
-        Ticket ticket = new Ticket();
-        ticket.setId(UUID.randomUUID().toString());
-        ticket.setTitle(title);
-        ticket.setDescription(description);
-        ticket.setStatus("OPEN");
-        ticket.setCreatedAt(new Date());
-        ticket.setReplies(new ArrayList<>());
-
-        tickets.put(ticket.getId(), ticket);
-        replies.put(ticket.getId(), new ArrayList<>());
+        TicketSnapshot ticket = TicketSnapshot.builder(ids.nextId())
+            .version(1)
+            .title(title)
+            .description(description)
+            .status(TicketStatus.OPEN)
+            .createdAt(System.currentTimeMillis())
+            .build();
+
+        TicketEventLog.Pending pending = new TicketEventLog.Pending();
+        int entered = gate.enter();
+        try {
+            tickets.compute(ticket.getId(), (id, previous) -> {
+                journal.ticketSaved(ticket);
+                indexes.update(previous, ticket);
+                searchIndex.update(previous, ticket);
+                events.append(pending, TicketEvent.Type.CREATED, ticket, null, ticket.getCreatedAtMillis());
+                return ticket;
+            });
+        } finally {
+            gate.exit(entered);
+        }
+        cache.ticketChanged(null, ticket);
+        releaseWhenDurable(pending);
 
-        return ticket;
+        return ticket.toTicket();
     }
 
     @Override
     public Ticket getTicket(String id) {
-        Ticket ticket = tickets.get(id);
-        if (ticket != null) {
-            List<Reply> ticketReplies = replies.get(id);
-            if (ticketReplies != null) {
-                ticket.setReplies(ticketReplies);
-            }
+        TicketSnapshot snapshot = tickets.get(id);
+        if (snapshot == null) {
+            return null;
+        }
+        Ticket ticket = snapshot.toTicket();
+        ReplyThread thread = replies.get(id);
+        if (thread != null) {
+            ticket.setReplies(thread.replies());
         }
         return ticket;
     }
 
+    @Override
+    public TicketSnapshot getTicketSnapshot(String id) {
+        return tickets.get(id);
+    }
+
+    @Override
+    public List<TicketSnapshot> getTicketSnapshots() {
+        return tickets.stream().collect(Collectors.toList());
+    }
+
     @Override
     public void updateTicket(Ticket ticket) {
-        if (!tickets.containsKey(ticket.getId())) {
-            throw new IllegalArgumentException("Ticket not found: " + ticket.getId());
-        }
-        tickets.put(ticket.getId(), ticket);
+        publish(ticket.getId(), ANY_VERSION, null, ticketChanges(ticket));
+    }
+
+    @Override
+    public long updateTicket(Ticket ticket, long expectedVersion) {
+        return publish(ticket.getId(), expectedVersion, null, ticketChanges(ticket)).getVersion();
+    }
+
+    private static UnaryOperator<TicketSnapshot.Builder> ticketChanges(Ticket ticket) {
+        return builder -> {
+            builder.title(ticket.getTitle())
+                .description(ticket.getDescription())
+                .status(ticket.getStatus())
+                .assignedTo(ticket.getAssignedTo());
+            if (ticket.getCreatedAt() != null) {
+                builder.createdAt(ticket.getCreatedAt().getTime());
+            }
+            // Taken as given, so reopening a ticket clears it
+            builder.resolvedAt(ticket.getResolvedAt() != null ? ticket.getResolvedAt().getTime() : 0);
+            return builder;
+        };
     }
 
     @Override
     public void assignTicket(String ticketId, String userId) {
-        Ticket ticket = tickets.get(ticketId);
-        if (ticket == null) {
-            throw new IllegalArgumentException("Ticket not found: " + ticketId);
-        }
-        ticket.setAssignedTo(userId);
-        ticket.setLastUpdatedAt(new Date());
-        tickets.put(ticketId, ticket);
+        publish(ticketId, ANY_VERSION, TicketEvent.Type.ASSIGNED, builder -> builder.assignedTo(userId));
+    }
+
+    @Override
+    public long assignTicket(String ticketId, String userId, long expectedVersion) {
+        return publish(ticketId, expectedVersion, TicketEvent.Type.ASSIGNED, builder -> builder.assignedTo(userId))
+            .getVersion();
     }
 
     @Override
     public Reply addReply(String ticketId, String content, String parentReplyId) {
-        List<Reply> ticketReplies = replies.get(ticketId);
-        if (ticketReplies == null) {
+        if (tickets.get(ticketId) == null) {
             throw new IllegalArgumentException("Ticket not found: " + ticketId);
         }
+        ReplyThread thread = replies.computeIfAbsent(ticketId, id -> new ReplyThread());
 
         Reply reply = new Reply();
-        reply.setId(UUID.randomUUID().toString());
+        reply.setId(ids.nextId());
         reply.setContent(content);
         reply.setParentId(parentReplyId);
         reply.setTimestamp(new Date());
         reply.setChildren(new ArrayList<>());
 
-        ticketReplies.add(reply);
-
-        // Update ticket last updated timestamp
-        Ticket ticket = tickets.get(ticketId);
-        ticket.setLastUpdatedAt(new Date());
-        tickets.put(ticketId, ticket);
+        // Journaled before it becomes visible, so an edit can never be journaled ahead of it.
+        // The last-updated bump is journaled after it, so waiting for that covers the reply too
+        TicketEventLog.Pending pending = new TicketEventLog.Pending();
+        int entered = gate.enter();
+        try {
+            journal.replySaved(ticketId, reply);
+            thread.add(reply);
+            apply(ticketId, ANY_VERSION, builder -> builder, reply.getTimestamp().getTime(), pending, null,
+                TicketEvent.Type.REPLIED, Collections.singletonList(reply.getId()));
+        } finally {
+            gate.exit(entered);
+        }
+        releaseWhenDurable(pending);
 
         return reply;
     }
 
     @Override
     public void editReply(String ticketId, String replyId, String newContent) {
-        List<Reply> ticketReplies = replies.get(ticketId);
-        if (ticketReplies == null) {
+        if (tickets.get(ticketId) == null) {
             throw new IllegalArgumentException("Ticket not found: " + ticketId);
         }
-
-        for (Reply reply : ticketReplies) {
-            if (reply.getId().equals(replyId)) {
-                reply.setContent(newContent);
-                reply.setLastEditedAt(new Date());
-                return;
-            }
+        ReplyThread thread = replies.get(ticketId);
+        long now = System.currentTimeMillis();
+        TicketEventLog.Pending pending = new TicketEventLog.Pending();
+        boolean edited;
+        int entered = gate.enter();
+        try {
+            edited = thread != null && thread.edit(replyId, newContent, now, copy -> {
+                journal.replySaved(ticketId, copy);
+                events.append(pending, TicketEvent.Type.EDITED, tickets.get(ticketId), replyId, now);
+            });
+        } finally {
+            gate.exit(entered);
         }
-        throw new IllegalArgumentException("Reply not found: " + replyId);
+        if (!edited) {
+            throw new IllegalArgumentException("Reply not found: " + replyId);
+        }
+        releaseWhenDurable(pending);
     }
 
     @Override
     public void resolveTicket(String ticketId) {
-        Ticket ticket = tickets.get(ticketId);
-        if (ticket == null) {
+        publish(ticketId, ANY_VERSION, TicketEvent.Type.RESOLVED,
+            builder -> builder.status(TicketStatus.RESOLVED).resolvedAt(System.currentTimeMillis()));
+    }
+
+    // Atomically replaces the ticket with the next version and moves it between index buckets.
+    // A version mismatch throws out of computeIfPresent, which leaves the mapping untouched.
+    // A null event type is derived from what the change did.
+    private TicketSnapshot publish(String ticketId, long expectedVersion, TicketEvent.Type type,
+                                   UnaryOperator<TicketSnapshot.Builder> change) {
+        TicketEventLog.Pending pending = new TicketEventLog.Pending();
+        TicketSnapshot published;
+        int entered = gate.enter();
+        try {
+            published = apply(ticketId, expectedVersion, change, System.currentTimeMillis(), pending, null, type, null);
+        } finally {
+            gate.exit(entered);
+        }
+        if (published == null) {
             throw new IllegalArgumentException("Ticket not found: " + ticketId);
         }
-        ticket.setStatus("RESOLVED");
-        ticket.setResolvedAt(new Date());
-        ticket.setLastUpdatedAt(new Date());
-        tickets.put(ticketId, ticket);
+        releaseWhenDurable(pending);
+        return published;
+    }
+
+    // Called inside the gate; returns null for an unknown ticket, and the caller waits for and releases the events.
+    // Announces one event of the type, or one per reply id when those are given.
+    private TicketSnapshot apply(String ticketId, long expectedVersion, UnaryOperator<TicketSnapshot.Builder> change,
+                                 long now, TicketEventLog.Pending pending, TicketIndexes.CounterBatch counters,
+                                 TicketEvent.Type type, List<String> replyIds) {
+        TicketSnapshot[] previous = new TicketSnapshot[1];
+        TicketSnapshot published = tickets.computeIfPresent(ticketId, (id, current) -> {
+            if (expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion) {
+                throw new TicketConflictException(id, expectedVersion, current.getVersion());
+            }
+            TicketSnapshot next = change.apply(current.toBuilder()
+                    .version(current.getVersion() + 1)
+                    .lastUpdatedAt(now))
+                .build();
+            journal.ticketSaved(next);
+            indexes.update(current, next, counters);
+            searchIndex.update(current, next);
+            if (replyIds == null) {
+                events.append(pending, type != null ? type : eventType(current, next), next, null, now);
+            } else {
+                for (String replyId : replyIds) {
+                    events.append(pending, type, next, replyId, now);
+                }
+            }
+            previous[0] = current;
+            return next;
+        });
+        if (published != null) {
+            cache.ticketChanged(previous[0], published);
+        }
+        return published;
+    }
+
+    // The change is already visible; its events are dropped if it may not be durable
+    private void releaseWhenDurable(TicketEventLog.Pending pending) {
+        try {
+            journal.awaitDurable(pending.position());
+        } catch (RuntimeException e) {
+            events.abandon(pending);
+            throw e;
+        }
+        events.release(pending);
+    }
+
+    private static TicketEvent.Type eventType(TicketSnapshot current, TicketSnapshot next) {
+        if (!TicketIndexes.isOpen(next.getTicketStatus()) && TicketIndexes.isOpen(current.getTicketStatus())) {
+            return TicketEvent.Type.RESOLVED;
+        }
+        if (!Objects.equals(TicketIndexes.normalizeAssignee(current.getAssignedTo()),
+                TicketIndexes.normalizeAssignee(next.getAssignedTo()))) {
+            return TicketEvent.Type.ASSIGNED;
+        }
+        return TicketEvent.Type.EDITED;
+    }
+
+    @Override
+    public BulkResult<Ticket> createTickets(List<TicketDraft> drafts) {
+        long now = System.currentTimeMillis();
+        BulkResult<Ticket> result = new BulkResult<>(drafts.size());
+        List<TicketSnapshot> created = new ArrayList<>(drafts.size());
+        for (TicketDraft draft : drafts) {
+            if (draft == null) {
+                result.failed(null, "Ticket draft is required");
+                continue;
+            }
+            TicketSnapshot ticket = TicketSnapshot.builder(ids.nextId())
+                .version(1)
+                .title(draft.getTitle())
+                .description(draft.getDescription())
+                .status(TicketStatus.OPEN)
+                .assignedTo(draft.getAssignedTo())
+                .createdAt(now)
+                .build();
+            created.add(ticket);
+            result.succeeded(ticket.getId(), ticket.toTicket());
+        }
+
+        TicketIndexes.CounterBatch counters = new TicketIndexes.CounterBatch();
+        TicketEventLog.Pending pending = new TicketEventLog.Pending();
+        int entered = gate.enter();
+        try {
+            // The ids are new, so no other writer can reach these tickets before they are published
+            journal.ticketsSaved(created);
+            for (TicketSnapshot ticket : created) {
+                tickets.compute(ticket.getId(), (id, previous) -> {
+                    indexes.update(previous, ticket, counters);
+                    searchIndex.update(previous, ticket);
+                    events.append(pending, TicketEvent.Type.CREATED, ticket, null, now);
+                    return ticket;
+                });
+                cache.ticketChanged(null, ticket);
+            }
+        } finally {
+            indexes.apply(counters);
+            gate.exit(entered);
+        }
+        releaseWhenDurable(pending);
+        return result;
+    }
+
+    @Override
+    public BulkResult<Reply> addReplies(String ticketId, List<ReplyDraft> drafts) {
+        BulkResult<Reply> result = new BulkResult<>(drafts.size());
+        if (tickets.get(ticketId) == null) {
+            for (int i = 0; i < drafts.size(); i++) {
+                result.failed(ticketId, "Ticket not found: " + ticketId);
+            }
+            return result;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Reply> added = new ArrayList<>(drafts.size());
+        for (ReplyDraft draft : drafts) {
+            if (draft == null) {
+                result.failed(ticketId, "Reply draft is required");
+                continue;
+            }
+            Reply reply = new Reply();
+            reply.setId(ids.nextId());
+            reply.setContent(draft.getContent());
+            reply.setParentId(draft.getParentReplyId());
+            reply.setTimestamp(new Date(now));
+            reply.setChildren(new ArrayList<>());
+            added.add(reply);
+            result.succeeded(ticketId, reply);
+        }
+        if (added.isEmpty()) {
+            return result;
+        }
+
+        ReplyThread thread = replies.computeIfAbsent(ticketId, id -> new ReplyThread());
+        List<String> replyIds = new ArrayList<>(added.size());
+        TicketEventLog.Pending pending = new TicketEventLog.Pending();
+        int entered = gate.enter();
+        try {
+            journal.repliesSaved(ticketId, added);
+            for (Reply reply : added) {
+                thread.add(reply);
+                replyIds.add(reply.getId());
+            }
+            // One last-updated bump for the whole batch, announced once per reply
+            apply(ticketId, ANY_VERSION, builder -> builder, now, pending, null, TicketEvent.Type.REPLIED, replyIds);
+        } finally {
+            gate.exit(entered);
+        }
+        releaseWhenDurable(pending);
+        return result;
+    }
+
+    @Override
+    public BulkResult<Long> assignTickets(Map<String, String> assignments) {
+        return publishAll(assignments.keySet(), TicketEvent.Type.ASSIGNED,
+            id -> builder -> builder.assignedTo(assignments.get(id)));
+    }
+
+    @Override
+    public BulkResult<Long> resolveTickets(Collection<String> ticketIds) {
+        long now = System.currentTimeMillis();
+        return publishAll(ticketIds, TicketEvent.Type.RESOLVED,
+            id -> builder -> builder.status(TicketStatus.RESOLVED).resolvedAt(now));
+    }
+
+    // Applies one change per ticket with a single gate entry, counter update and durability wait
+    private BulkResult<Long> publishAll(Collection<String> ticketIds, TicketEvent.Type type,
+                                        Function<String, UnaryOperator<TicketSnapshot.Builder>> changes) {
+        long now = System.currentTimeMillis();
+        BulkResult<Long> result = new BulkResult<>(ticketIds.size());
+        TicketIndexes.CounterBatch counters = new TicketIndexes.CounterBatch();
+        TicketEventLog.Pending pending = new TicketEventLog.Pending();
+        int entered = gate.enter();
+        try {
+            for (String ticketId : ticketIds) {
+                TicketSnapshot published;
+                try {
+                    published = ticketId != null
+                        ? apply(ticketId, ANY_VERSION, changes.apply(ticketId), now, pending, counters, type, null)
+                        : null;
+                } catch (IllegalArgumentException e) {
+                    result.failed(ticketId, e.getMessage());
+                    continue;
+                }
+                if (published == null) {
+                    result.failed(ticketId, "Ticket not found: " + ticketId);
+                } else {
+                    result.succeeded(ticketId, published.getVersion());
+                }
+            }
+        } finally {
+            indexes.apply(counters);
+            gate.exit(entered);
+        }
+        releaseWhenDurable(pending);
+        return result;
+    }
+
+    /**
+     * Creates or replaces the user with the same id; a missing id is generated.
+     * The user's department regroups the tickets assigned to the user id.
+     */
+    @Override
+    public User registerUser(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User is required");
+        }
+        User registered = copy(user);
+        if (registered.getId() == null || registered.getId().isEmpty()) {
+            registered.setId(ids.nextId());
+        }
+        long[] position = new long[1];
+        int entered = gate.enter();
+        try {
+            // Journaled in the map slot, so registrations of one id are logged in the order they apply
+            users.compute(registered.getId(), (id, previous) -> {
+                position[0] = journal.userSaved(registered);
+                indexes.setDepartment(id, registered.getDepartment());
+                return registered;
+            });
+        } finally {
+            gate.exit(entered);
+        }
+        cache.invalidate(Collections.singletonList(QueryCache.DEPARTMENTS));
+        journal.awaitDurable(position[0]);
+        return copy(registered);
+    }
+
+    @Override
+    public User getUser(String userId) {
+        User user = userId != null ? users.get(userId) : null;
+        return user != null ? copy(user) : null;
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setRole(user.getRole());
+        copy.setDepartment(user.getDepartment());
+        return copy;
     }
 
     @Override
     public List<Ticket> getAllTickets() {
-        return new ArrayList<>(tickets.values());
+        return tickets.stream()
+            .map(TicketSnapshot::toTicket)
+            .collect(Collectors.toList());
     }
 
     @Override
     public List<Ticket> getTicketsByStatus(String status) {
-        return tickets.values().stream()
-            .filter(ticket -> status.equals(ticket.getStatus()))
-            .collect(Collectors.toList());
+        TicketStatus wanted = TicketStatus.find(status);
+        if (wanted == null) {
+            return new ArrayList<>();
+        }
+        return toTickets(statusView(wanted));
+    }
+
+    private List<TicketSnapshot> statusView(TicketStatus status) {
+        return cache.get(QueryCache.statusKey(status),
+            () -> snapshots(indexes.idsWithStatus(status), ticket -> ticket.getTicketStatus() == status), List::size);
     }
 
     @Override
     public List<Ticket> getTicketsByAssignee(String userId) {
-        return tickets.values().stream()
-            .filter(ticket -> userId.equals(ticket.getAssignedTo()))
-            .collect(Collectors.toList());
+        Supplier<List<TicketSnapshot>> loader =
+            () -> snapshots(indexes.idsAssignedTo(userId), ticket -> userId.equals(ticket.getAssignedTo()));
+        // Cached under the assignee a ticket change invalidates
+        String assignee = TicketIndexes.normalizeAssignee(userId);
+        return toTickets(assignee != null ? cache.get(QueryCache.assigneeKey(assignee), loader, List::size) : loader.get());
     }
 
+    // Walks the tickets of each department's members instead of every ticket
     @Override
     public Map<String, List<Ticket>> getTicketsByDepartment() {
-        return tickets.values().stream()
-            .filter(ticket -> ticket.getAssignedTo() != null)
-            .collect(Collectors.groupingBy(
-                ticket -> ticket.getAssignedTo().split("\\.")[0],
-                Collectors.toList()
-            ));
+        Map<String, List<TicketSnapshot>> cached = cache.get(QueryCache.DEPARTMENTS, () -> {
+            Map<String, List<TicketSnapshot>> byDepartment = new HashMap<>();
+            for (String department : indexes.departments()) {
+                List<TicketSnapshot> assigned = matching(TicketFilter.ALL.inDepartment(department), null)
+                    .collect(Collectors.toList());
+                if (!assigned.isEmpty()) {
+                    byDepartment.put(department, assigned);
+                }
+            }
+            return byDepartment;
+        }, byDepartment -> byDepartment.values().stream().mapToInt(List::size).sum());
+
+        Map<String, List<Ticket>> result = new HashMap<>();
+        for (Map.Entry<String, List<TicketSnapshot>> entry : cached.entrySet()) {
+            result.put(entry.getKey(), toTickets(entry.getValue()));
+        }
+        return result;
     }
 
     @Override
     public List<Ticket> searchTickets(String searchTerm) {
-        String term = searchTerm.toLowerCase();
-        return tickets.values().stream()
-            .filter(ticket ->
-                ticket.getTitle().toLowerCase().contains(term) ||
-                ticket.getDescription().toLowerCase().contains(term))
-            .collect(Collectors.toList());
+        return searchTickets(searchTerm, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String query, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Invalid page: offset=" + offset + ", limit=" + limit);
+        }
+
+        List<String> ids = searchIndex.search(query, offset, limit);
+        if (ids == null) {
+            // A query without terms matches every ticket
+            return tickets.stream()
+                .skip(offset)
+                .limit(limit)
+                .map(TicketSnapshot::toTicket)
+                .collect(Collectors.toList());
+        }
+        return lookup(ids, ticket -> true);
     }
 
     @Override
     public List<Reply> getTicketRepliesTree(String ticketId) {
-        List<Reply> allReplies = replies.get(ticketId);
-        if (allReplies == null) {
+        ReplyThread thread = replies.get(ticketId);
+        if (thread == null) {
             return new ArrayList<>();
         }
+        return thread.tree();
+    }
 
-        Map<String, List<Reply>> replyChildren = new HashMap<>();
-        List<Reply> rootReplies = new ArrayList<>();
+    @Override
+    public Map<String, Integer> getTicketStatistics() {
+        return indexes.statusCounts();
+    }
 
-        for (Reply reply : allReplies) {
-            if (reply.getParentId() == null) {
-                rootReplies.add(reply);
-            } else {
-                replyChildren.computeIfAbsent(reply.getParentId(), k -> new ArrayList<>())
-                    .add(reply);
+    @Override
+    public Map<String, Integer> getOpenTicketCountsByAssignee() {
+        return indexes.openCountsByAssignee();
+    }
+
+    @Override
+    public Map<String, Integer> getOpenTicketCountsByDepartment() {
+        return indexes.openCountsByDepartment();
+    }
+
+    @Override
+    public List<Ticket> getRecentTickets(int limit) {
+        List<Ticket> result = new ArrayList<>();
+        Iterator<String> ids = indexes.idsByCreationDescending().iterator();
+        while (result.size() < limit && ids.hasNext()) {
+            TicketSnapshot ticket = tickets.get(ids.next());
+            if (ticket != null) {
+                result.add(ticket.toTicket());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Ticket> getUnassignedTickets() {
+        return toTickets(unassignedView());
+    }
+
+    private List<TicketSnapshot> unassignedView() {
+        return cache.get(QueryCache.UNASSIGNED, () -> snapshots(indexes.unassignedIds(),
+            ticket -> TicketIndexes.normalizeAssignee(ticket.getAssignedTo()) == null), List::size);
+    }
+
+    // Loads the status and unassigned views into the view cache, e.g. after recovery; status views
+    // with more tickets than the cache holds are not loaded
+    public void warmQueryCache() {
+        long capacity = cache.statistics().get("maxTickets");
+        for (TicketStatus status : TicketStatus.values()) {
+            long count = indexes.statusCount(status);
+            if (count > 0 && count <= capacity) {
+                statusView(status);
+            }
+        }
+        if (capacity > 0) {
+            unassignedView();
+        }
+    }
+
+    // Hit, miss, eviction and invalidation counts and the size of the view cache
+    @Override
+    public Map<String, Long> getQueryCacheStatistics() {
+        return cache.statistics();
+    }
+
+    // Tickets the view cache may hold in total; 0 turns it off
+    public void setQueryCacheSize(long maxTickets) {
+        cache.resize(maxTickets);
+    }
+
+    // Sizes of the stores and indexes, read on each call; the reply and term counts walk their maps
+    public Map<String, Long> getGauges() {
+        long openTickets = 0;
+        for (TicketStatus status : TicketStatus.values()) {
+            if (TicketIndexes.isOpen(status)) {
+                openTickets += indexes.statusCount(status);
             }
         }
+        long replyCount = 0;
+        for (ReplyThread thread : replies.values()) {
+            replyCount += thread.size();
+        }
+        Map<String, Long> gauges = new LinkedHashMap<>();
+        gauges.put("tickets", (long) tickets.size());
+        gauges.put("openTickets", openTickets);
+        gauges.put("replies", replyCount);
+        gauges.put("replyThreads", (long) replies.size());
+        gauges.put("users", (long) users.size());
+        gauges.put("assignees", (long) indexes.assigneeCount());
+        gauges.put("departments", (long) indexes.departments().size());
+        gauges.put("searchTerms", (long) searchIndex.termCount());
+        gauges.put("lastEventSequence", events.lastSequence());
+        gauges.put("eventListenerFailures", events.listenerFailures());
+        gauges.put("cachedTickets", cache.statistics().get("cachedTickets"));
+        return gauges;
+    }
 
-        return buildReplyTree(rootReplies, replyChildren);
+    private List<Ticket> lookup(Collection<String> ids, Predicate<TicketSnapshot> check) {
+        return toTickets(snapshots(ids, check));
     }
 
-    private List<Reply> buildReplyTree(List<Reply> replies, Map<String, List<Reply>> children) {
-        for (Reply reply : replies) {
-            List<Reply> childReplies = children.get(reply.getId());
-            if (childReplies != null) {
-                childReplies.sort(Comparator.comparing(Reply::getTimestamp));
-                reply.setChildren(buildReplyTree(childReplies, children));
+    // Resolves index hits to tickets; the re-check drops ids caught mid-move between buckets
+    private List<TicketSnapshot> snapshots(Collection<String> ids, Predicate<TicketSnapshot> check) {
+        List<TicketSnapshot> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            TicketSnapshot ticket = tickets.get(id);
+            if (ticket != null && check.test(ticket)) {
+                result.add(ticket);
             }
         }
-        replies.sort(Comparator.comparing(Reply::getTimestamp));
-        return replies;
+        return result;
+    }
+
+    private static List<Ticket> toTickets(List<TicketSnapshot> snapshots) {
+        List<Ticket> result = new ArrayList<>(snapshots.size());
+        for (TicketSnapshot ticket : snapshots) {
+            result.add(ticket.toTicket());
+        }
+        return result;
     }
 
     @Override
-    public Map<String, Integer> getTicketStatistics() {
-        return tickets.values().stream()
-            .collect(Collectors.groupingBy(
-                Ticket::getStatus,
-                Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-            ));
+    public List<Ticket> getOverdueTickets() {
+        long threshold = System.currentTimeMillis() - overdueWindowMillis;
+        return lookup(indexes.openIdsCreatedBefore(threshold), ticket -> TicketIndexes.isOpen(ticket.getTicketStatus()));
     }
 
     @Override
-    public List<Ticket> getRecentTickets(int limit) {
-        return tickets.values().stream()
-            .sorted(Comparator.comparing(Ticket::getCreatedAt).reversed())
-            .limit(limit)
-            .collect(Collectors.toList());
+    public TicketPage page(TicketFilter filter, String afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Invalid page limit: " + limit);
+        }
+        TicketSnapshot after = null;
+        if (afterId != null) {
+            after = tickets.get(afterId);
+            if (after == null) {
+                throw new IllegalArgumentException("Ticket not found: " + afterId);
+            }
+        }
+        List<Ticket> page = new ArrayList<>(Math.min(limit, 256));
+        Iterator<TicketSnapshot> matches = matching(filter, after).iterator();
+        TicketSnapshot last = null;
+        while (page.size() < limit && matches.hasNext()) {
+            last = matches.next();
+            page.add(last.toTicket());
+        }
+        return new TicketPage(page, matches.hasNext() ? last.getId() : null);
     }
 
     @Override
-    public List<Ticket> getUnassignedTickets() {
-        return tickets.values().stream()
-            .filter(ticket -> ticket.getAssignedTo() == null || ticket.getAssignedTo().isEmpty())
-            .collect(Collectors.toList());
+    public Stream<Ticket> streamTickets(TicketFilter filter) {
+        return matching(filter, null).map(TicketSnapshot::toTicket);
+    }
+
+    // Lazily walks the narrowest index for the filter, in creation order
+    private Stream<TicketSnapshot> matching(TicketFilter filter, TicketSnapshot after) {
+        TicketFilter criteria = filter != null ? filter : TicketFilter.ALL;
+        Iterator<String> ids = indexes.idsInCreationOrder(criteria.getStatus(),
+            TicketIndexes.normalizeAssignee(criteria.getAssignedTo()), criteria.getDepartment(),
+            criteria.isUnassigned(), after);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .map(tickets::get)
+            .filter(ticket -> ticket != null && matches(criteria, ticket));
+    }
+
+    private boolean matches(TicketFilter filter, TicketSnapshot ticket) {
+        String assignee = TicketIndexes.normalizeAssignee(ticket.getAssignedTo());
+        if (filter.getStatus() != null && ticket.getTicketStatus() != filter.getStatus()) {
+            return false;
+        }
+        if (filter.isUnassigned() && assignee != null) {
+            return false;
+        }
+        if (filter.getAssignedTo() != null && !filter.getAssignedTo().equals(assignee)) {
+            return false;
+        }
+        return filter.getDepartment() == null
+            || (assignee != null && filter.getDepartment().equals(indexes.departmentOf(assignee)));
     }
 
     @Override
-    public List<Ticket> getOverdueTickets() {
-        return tickets.values().stream()
-            .filter(ticket ->
-                !"RESOLVED".equals(ticket.getStatus()) &&
-                ticket.getCreatedAt().before(getOverdueThreshold()))
+    public List<Ticket> query(TicketQuery query) {
+        return planner.run(planner.plan(query)).stream()
+            .map(TicketSnapshot::toTicket)
             .collect(Collectors.toList());
     }
 
-    private Date getOverdueThreshold() {
-        Calendar cal = Calendar.getInstance();
-        cal.add(Calendar.HOUR, -24);
-        return cal.getTime();
+    @Override
+    public QueryPlan explain(TicketQuery query) {
+        return planner.plan(query).explain;
+    }
+
+    @Override
+    public long getLastEventSequence() {
+        return events.lastSequence();
+    }
+
+    @Override
+    public List<TicketEvent> getEventsAfter(long sequence, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Invalid event limit: " + limit);
+        }
+        return events.after(sequence, limit);
+    }
+
+    // Whiteboard delivery; see TicketEventLog#subscribe
+    public TicketEventLog.Subscription subscribe(TicketEventListener listener, long afterSequence, int bufferSize) {
+        return events.subscribe(listener, afterSequence, bufferSize);
+    }
+
+    public void setOverdueWindow(long amount, TimeUnit unit) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Overdue window must be positive: " + amount);
+        }
+        overdueWindowMillis = unit.toMillis(amount);
+    }
+
+    public long getOverdueWindowMillis() {
+        return overdueWindowMillis;
     }
-}
\ No newline at end of file
+}
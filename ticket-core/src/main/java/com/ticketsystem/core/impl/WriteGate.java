@@ -0,0 +1,53 @@
+package com.ticketsystem.core.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lets a checkpoint wait for every write that was already in flight, without
+ * ever making writers wait. Writers register in the current epoch; {@link #drain()}
+ * switches epochs and spins until the previous epoch is empty.
+ */
+final class WriteGate {
+    private static final int STRIPES = 64;
+    // One counter per 64-byte line, so stripes do not share a cache line
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray[] active = {
+        new AtomicLongArray(STRIPES * PADDING),
+        new AtomicLongArray(STRIPES * PADDING)
+    };
+    private volatile int epoch;
+
+    int enter() {
+        int slot = slot();
+        while (true) {
+            int current = epoch;
+            active[current].incrementAndGet(slot);
+            if (epoch == current) {
+                return current;
+            }
+            // Raced with drain(); register in the new epoch instead
+            active[current].decrementAndGet(slot);
+        }
+    }
+
+    void exit(int entered) {
+        active[entered].decrementAndGet(slot());
+    }
+
+    // Returns once every write that entered before this call has exited
+    synchronized void drain() {
+        int previous = epoch;
+        epoch = 1 - previous;
+        // A writer always counts up and down on its own stripe, so no stripe reads below zero
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            while (active[previous].get(stripe * PADDING) != 0) {
+                Thread.yield();
+            }
+        }
+    }
+
+    private static int slot() {
+        return (int) (Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+    }
+}
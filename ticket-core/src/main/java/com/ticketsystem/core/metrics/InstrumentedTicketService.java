@@ -0,0 +1,686 @@
+package com.ticketsystem.core.metrics;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.ReplyDraft;
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketDraft;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.User;
+import com.ticketsystem.api.query.QueryPlan;
+import com.ticketsystem.api.query.TicketQuery;
+import com.ticketsystem.api.service.BulkResult;
+import com.ticketsystem.api.service.TicketFilter;
+import com.ticketsystem.api.service.TicketPage;
+import com.ticketsystem.api.service.TicketService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * TicketService that records the latency and failures of every call to the
+ * delegate. Each method holds its own {@link OperationMetrics} and times the
+ * call inline, without lambdas, so recording adds two clock reads and a few
+ * atomic increments and allocates nothing. Only {@code streamTickets}
+ * allocates, a wrapper that times the stream until it is consumed.
+ */
+public class InstrumentedTicketService implements TicketService {
+    private final TicketService delegate;
+    private final OperationMetrics createTicketMetrics;
+    private final OperationMetrics updateTicketMetrics;
+    private final OperationMetrics assignTicketMetrics;
+    private final OperationMetrics updateTicketVersionedMetrics;
+    private final OperationMetrics assignTicketVersionedMetrics;
+    private final OperationMetrics addReplyMetrics;
+    private final OperationMetrics editReplyMetrics;
+    private final OperationMetrics resolveTicketMetrics;
+    private final OperationMetrics createTicketsMetrics;
+    private final OperationMetrics addRepliesMetrics;
+    private final OperationMetrics assignTicketsMetrics;
+    private final OperationMetrics resolveTicketsMetrics;
+    private final OperationMetrics registerUserMetrics;
+    private final OperationMetrics getUserMetrics;
+    private final OperationMetrics getTicketMetrics;
+    private final OperationMetrics getAllTicketsMetrics;
+    private final OperationMetrics getTicketsByStatusMetrics;
+    private final OperationMetrics getTicketsByAssigneeMetrics;
+    private final OperationMetrics getTicketsByDepartmentMetrics;
+    private final OperationMetrics searchTicketsMetrics;
+    private final OperationMetrics searchTicketsPagedMetrics;
+    private final OperationMetrics getTicketRepliesTreeMetrics;
+    private final OperationMetrics getTicketStatisticsMetrics;
+    private final OperationMetrics getOpenTicketCountsByAssigneeMetrics;
+    private final OperationMetrics getOpenTicketCountsByDepartmentMetrics;
+    private final OperationMetrics getRecentTicketsMetrics;
+    private final OperationMetrics getUnassignedTicketsMetrics;
+    private final OperationMetrics getOverdueTicketsMetrics;
+    private final OperationMetrics getQueryCacheStatisticsMetrics;
+    private final OperationMetrics pageMetrics;
+    private final OperationMetrics streamTicketsMetrics;
+    private final OperationMetrics queryMetrics;
+    private final OperationMetrics explainMetrics;
+    private final OperationMetrics getLastEventSequenceMetrics;
+    private final OperationMetrics getEventsAfterMetrics;
+    private final OperationMetrics getTicketSnapshotMetrics;
+    private final OperationMetrics getTicketSnapshotsMetrics;
+
+    public InstrumentedTicketService(TicketService delegate, TicketMetricsImpl metrics) {
+        this.delegate = delegate;
+        this.createTicketMetrics = metrics.operation("createTicket");
+        this.updateTicketMetrics = metrics.operation("updateTicket");
+        this.assignTicketMetrics = metrics.operation("assignTicket");
+        this.updateTicketVersionedMetrics = metrics.operation("updateTicketVersioned");
+        this.assignTicketVersionedMetrics = metrics.operation("assignTicketVersioned");
+        this.addReplyMetrics = metrics.operation("addReply");
+        this.editReplyMetrics = metrics.operation("editReply");
+        this.resolveTicketMetrics = metrics.operation("resolveTicket");
+        this.createTicketsMetrics = metrics.operation("createTickets");
+        this.addRepliesMetrics = metrics.operation("addReplies");
+        this.assignTicketsMetrics = metrics.operation("assignTickets");
+        this.resolveTicketsMetrics = metrics.operation("resolveTickets");
+        this.registerUserMetrics = metrics.operation("registerUser");
+        this.getUserMetrics = metrics.operation("getUser");
+        this.getTicketMetrics = metrics.operation("getTicket");
+        this.getAllTicketsMetrics = metrics.operation("getAllTickets");
+        this.getTicketsByStatusMetrics = metrics.operation("getTicketsByStatus");
+        this.getTicketsByAssigneeMetrics = metrics.operation("getTicketsByAssignee");
+        this.getTicketsByDepartmentMetrics = metrics.operation("getTicketsByDepartment");
+        this.searchTicketsMetrics = metrics.operation("searchTickets");
+        this.searchTicketsPagedMetrics = metrics.operation("searchTicketsPaged");
+        this.getTicketRepliesTreeMetrics = metrics.operation("getTicketRepliesTree");
+        this.getTicketStatisticsMetrics = metrics.operation("getTicketStatistics");
+        this.getOpenTicketCountsByAssigneeMetrics = metrics.operation("getOpenTicketCountsByAssignee");
+        this.getOpenTicketCountsByDepartmentMetrics = metrics.operation("getOpenTicketCountsByDepartment");
+        this.getRecentTicketsMetrics = metrics.operation("getRecentTickets");
+        this.getUnassignedTicketsMetrics = metrics.operation("getUnassignedTickets");
+        this.getOverdueTicketsMetrics = metrics.operation("getOverdueTickets");
+        this.getQueryCacheStatisticsMetrics = metrics.operation("getQueryCacheStatistics");
+        this.pageMetrics = metrics.operation("page");
+        this.streamTicketsMetrics = metrics.operation("streamTickets");
+        this.queryMetrics = metrics.operation("query");
+        this.explainMetrics = metrics.operation("explain");
+        this.getLastEventSequenceMetrics = metrics.operation("getLastEventSequence");
+        this.getEventsAfterMetrics = metrics.operation("getEventsAfter");
+        this.getTicketSnapshotMetrics = metrics.operation("getTicketSnapshot");
+        this.getTicketSnapshotsMetrics = metrics.operation("getTicketSnapshots");
+    }
+
+    @Override
+    public Ticket createTicket(String title, String description) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createTicket(title, description);
+        } catch (RuntimeException e) {
+            createTicketMetrics.failed();
+            throw e;
+        } finally {
+            createTicketMetrics.record(start);
+        }
+    }
+
+    @Override
+    public void updateTicket(Ticket ticket) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateTicket(ticket);
+        } catch (RuntimeException e) {
+            updateTicketMetrics.failed();
+            throw e;
+        } finally {
+            updateTicketMetrics.record(start);
+        }
+    }
+
+    @Override
+    public void assignTicket(String ticketId, String userId) {
+        long start = System.nanoTime();
+        try {
+            delegate.assignTicket(ticketId, userId);
+        } catch (RuntimeException e) {
+            assignTicketMetrics.failed();
+            throw e;
+        } finally {
+            assignTicketMetrics.record(start);
+        }
+    }
+
+    @Override
+    public long updateTicket(Ticket ticket, long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            return delegate.updateTicket(ticket, expectedVersion);
+        } catch (RuntimeException e) {
+            updateTicketVersionedMetrics.failed();
+            throw e;
+        } finally {
+            updateTicketVersionedMetrics.record(start);
+        }
+    }
+
+    @Override
+    public long assignTicket(String ticketId, String userId, long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            return delegate.assignTicket(ticketId, userId, expectedVersion);
+        } catch (RuntimeException e) {
+            assignTicketVersionedMetrics.failed();
+            throw e;
+        } finally {
+            assignTicketVersionedMetrics.record(start);
+        }
+    }
+
+    @Override
+    public Reply addReply(String ticketId, String content, String parentReplyId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.addReply(ticketId, content, parentReplyId);
+        } catch (RuntimeException e) {
+            addReplyMetrics.failed();
+            throw e;
+        } finally {
+            addReplyMetrics.record(start);
+        }
+    }
+
+    @Override
+    public void editReply(String ticketId, String replyId, String newContent) {
+        long start = System.nanoTime();
+        try {
+            delegate.editReply(ticketId, replyId, newContent);
+        } catch (RuntimeException e) {
+            editReplyMetrics.failed();
+            throw e;
+        } finally {
+            editReplyMetrics.record(start);
+        }
+    }
+
+    @Override
+    public void resolveTicket(String ticketId) {
+        long start = System.nanoTime();
+        try {
+            delegate.resolveTicket(ticketId);
+        } catch (RuntimeException e) {
+            resolveTicketMetrics.failed();
+            throw e;
+        } finally {
+            resolveTicketMetrics.record(start);
+        }
+    }
+
+    @Override
+    public BulkResult<Ticket> createTickets(List<TicketDraft> drafts) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createTickets(drafts);
+        } catch (RuntimeException e) {
+            createTicketsMetrics.failed();
+            throw e;
+        } finally {
+            createTicketsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public BulkResult<Reply> addReplies(String ticketId, List<ReplyDraft> drafts) {
+        long start = System.nanoTime();
+        try {
+            return delegate.addReplies(ticketId, drafts);
+        } catch (RuntimeException e) {
+            addRepliesMetrics.failed();
+            throw e;
+        } finally {
+            addRepliesMetrics.record(start);
+        }
+    }
+
+    @Override
+    public BulkResult<Long> assignTickets(Map<String, String> assignments) {
+        long start = System.nanoTime();
+        try {
+            return delegate.assignTickets(assignments);
+        } catch (RuntimeException e) {
+            assignTicketsMetrics.failed();
+            throw e;
+        } finally {
+            assignTicketsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public BulkResult<Long> resolveTickets(Collection<String> ticketIds) {
+        long start = System.nanoTime();
+        try {
+            return delegate.resolveTickets(ticketIds);
+        } catch (RuntimeException e) {
+            resolveTicketsMetrics.failed();
+            throw e;
+        } finally {
+            resolveTicketsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public User registerUser(User user) {
+        long start = System.nanoTime();
+        try {
+            return delegate.registerUser(user);
+        } catch (RuntimeException e) {
+            registerUserMetrics.failed();
+            throw e;
+        } finally {
+            registerUserMetrics.record(start);
+        }
+    }
+
+    @Override
+    public User getUser(String userId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUser(userId);
+        } catch (RuntimeException e) {
+            getUserMetrics.failed();
+            throw e;
+        } finally {
+            getUserMetrics.record(start);
+        }
+    }
+
+    @Override
+    public Ticket getTicket(String id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicket(id);
+        } catch (RuntimeException e) {
+            getTicketMetrics.failed();
+            throw e;
+        } finally {
+            getTicketMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<Ticket> getAllTickets() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllTickets();
+        } catch (RuntimeException e) {
+            getAllTicketsMetrics.failed();
+            throw e;
+        } finally {
+            getAllTicketsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<Ticket> getTicketsByStatus(String status) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicketsByStatus(status);
+        } catch (RuntimeException e) {
+            getTicketsByStatusMetrics.failed();
+            throw e;
+        } finally {
+            getTicketsByStatusMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<Ticket> getTicketsByAssignee(String userId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicketsByAssignee(userId);
+        } catch (RuntimeException e) {
+            getTicketsByAssigneeMetrics.failed();
+            throw e;
+        } finally {
+            getTicketsByAssigneeMetrics.record(start);
+        }
+    }
+
+    @Override
+    public Map<String, List<Ticket>> getTicketsByDepartment() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicketsByDepartment();
+        } catch (RuntimeException e) {
+            getTicketsByDepartmentMetrics.failed();
+            throw e;
+        } finally {
+            getTicketsByDepartmentMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String searchTerm) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchTickets(searchTerm);
+        } catch (RuntimeException e) {
+            searchTicketsMetrics.failed();
+            throw e;
+        } finally {
+            searchTicketsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<Ticket> searchTickets(String query, int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchTickets(query, offset, limit);
+        } catch (RuntimeException e) {
+            searchTicketsPagedMetrics.failed();
+            throw e;
+        } finally {
+            searchTicketsPagedMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<Reply> getTicketRepliesTree(String ticketId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicketRepliesTree(ticketId);
+        } catch (RuntimeException e) {
+            getTicketRepliesTreeMetrics.failed();
+            throw e;
+        } finally {
+            getTicketRepliesTreeMetrics.record(start);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getTicketStatistics() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicketStatistics();
+        } catch (RuntimeException e) {
+            getTicketStatisticsMetrics.failed();
+            throw e;
+        } finally {
+            getTicketStatisticsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getOpenTicketCountsByAssignee() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getOpenTicketCountsByAssignee();
+        } catch (RuntimeException e) {
+            getOpenTicketCountsByAssigneeMetrics.failed();
+            throw e;
+        } finally {
+            getOpenTicketCountsByAssigneeMetrics.record(start);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getOpenTicketCountsByDepartment() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getOpenTicketCountsByDepartment();
+        } catch (RuntimeException e) {
+            getOpenTicketCountsByDepartmentMetrics.failed();
+            throw e;
+        } finally {
+            getOpenTicketCountsByDepartmentMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<Ticket> getRecentTickets(int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getRecentTickets(limit);
+        } catch (RuntimeException e) {
+            getRecentTicketsMetrics.failed();
+            throw e;
+        } finally {
+            getRecentTicketsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<Ticket> getUnassignedTickets() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getUnassignedTickets();
+        } catch (RuntimeException e) {
+            getUnassignedTicketsMetrics.failed();
+            throw e;
+        } finally {
+            getUnassignedTicketsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<Ticket> getOverdueTickets() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getOverdueTickets();
+        } catch (RuntimeException e) {
+            getOverdueTicketsMetrics.failed();
+            throw e;
+        } finally {
+            getOverdueTicketsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getQueryCacheStatistics() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getQueryCacheStatistics();
+        } catch (RuntimeException e) {
+            getQueryCacheStatisticsMetrics.failed();
+            throw e;
+        } finally {
+            getQueryCacheStatisticsMetrics.record(start);
+        }
+    }
+
+    @Override
+    public TicketPage page(TicketFilter filter, String afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.page(filter, afterId, limit);
+        } catch (RuntimeException e) {
+            pageMetrics.failed();
+            throw e;
+        } finally {
+            pageMetrics.record(start);
+        }
+    }
+
+    // Times the stream from creation until it is exhausted or closed; a stream dropped part way is not recorded
+    @Override
+    public Stream<Ticket> streamTickets(TicketFilter filter) {
+        long start = System.nanoTime();
+        Stream<Ticket> tickets;
+        try {
+            tickets = delegate.streamTickets(filter);
+        } catch (RuntimeException e) {
+            streamTicketsMetrics.failed();
+            streamTicketsMetrics.record(start);
+            throw e;
+        }
+        TimedSpliterator timed = new TimedSpliterator(tickets.spliterator(), streamTicketsMetrics, start);
+        return StreamSupport.stream(timed, false).onClose(() -> {
+            try {
+                tickets.close();
+            } finally {
+                timed.finish();
+            }
+        });
+    }
+
+    @Override
+    public List<Ticket> query(TicketQuery query) {
+        long start = System.nanoTime();
+        try {
+            return delegate.query(query);
+        } catch (RuntimeException e) {
+            queryMetrics.failed();
+            throw e;
+        } finally {
+            queryMetrics.record(start);
+        }
+    }
+
+    @Override
+    public QueryPlan explain(TicketQuery query) {
+        long start = System.nanoTime();
+        try {
+            return delegate.explain(query);
+        } catch (RuntimeException e) {
+            explainMetrics.failed();
+            throw e;
+        } finally {
+            explainMetrics.record(start);
+        }
+    }
+
+    @Override
+    public long getLastEventSequence() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getLastEventSequence();
+        } catch (RuntimeException e) {
+            getLastEventSequenceMetrics.failed();
+            throw e;
+        } finally {
+            getLastEventSequenceMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<TicketEvent> getEventsAfter(long sequence, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getEventsAfter(sequence, limit);
+        } catch (RuntimeException e) {
+            getEventsAfterMetrics.failed();
+            throw e;
+        } finally {
+            getEventsAfterMetrics.record(start);
+        }
+    }
+
+    @Override
+    public TicketSnapshot getTicketSnapshot(String id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicketSnapshot(id);
+        } catch (RuntimeException e) {
+            getTicketSnapshotMetrics.failed();
+            throw e;
+        } finally {
+            getTicketSnapshotMetrics.record(start);
+        }
+    }
+
+    @Override
+    public List<TicketSnapshot> getTicketSnapshots() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicketSnapshots();
+        } catch (RuntimeException e) {
+            getTicketSnapshotsMetrics.failed();
+            throw e;
+        } finally {
+            getTicketSnapshotsMetrics.record(start);
+        }
+    }
+
+    /**
+     * Passes the tickets of a stream through, counting a failure while they
+     * are read and recording the latency once the last one is read. Exceptions
+     * from the caller's own stream operations are not counted.
+     */
+    private static final class TimedSpliterator implements Spliterator<Ticket> {
+        private final Spliterator<Ticket> tickets;
+        private final OperationMetrics metrics;
+        private final long start;
+        private boolean finished;
+        private boolean callerFailed;
+
+        TimedSpliterator(Spliterator<Ticket> tickets, OperationMetrics metrics, long start) {
+            this.tickets = tickets;
+            this.metrics = metrics;
+            this.start = start;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Ticket> action) {
+            boolean advanced;
+            try {
+                advanced = tickets.tryAdvance(ticket -> deliver(action, ticket));
+            } catch (RuntimeException e) {
+                failed();
+                throw e;
+            }
+            if (!advanced) {
+                finish();
+            }
+            return advanced;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Ticket> action) {
+            try {
+                tickets.forEachRemaining(ticket -> deliver(action, ticket));
+            } catch (RuntimeException e) {
+                failed();
+                throw e;
+            }
+            finish();
+        }
+
+        private void deliver(Consumer<? super Ticket> action, Ticket ticket) {
+            try {
+                action.accept(ticket);
+            } catch (RuntimeException e) {
+                callerFailed = true;
+                throw e;
+            }
+        }
+
+        private void failed() {
+            if (!callerFailed) {
+                metrics.failed();
+            }
+            finish();
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                metrics.record(start);
+            }
+        }
+
+        // Read in order on one thread, so never split
+        @Override
+        public Spliterator<Ticket> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return tickets.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return tickets.characteristics() & ~Spliterator.SIZED & ~Spliterator.SUBSIZED;
+        }
+    }
+}
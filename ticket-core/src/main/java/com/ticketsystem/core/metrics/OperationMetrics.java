@@ -0,0 +1,42 @@
+package com.ticketsystem.core.metrics;
+
+import com.ticketsystem.api.metrics.OperationStats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error count of one service method. Callers take
+ * {@code System.nanoTime()} before the call and pass it to {@link #record(long)}
+ * when the call returns or throws.
+ */
+public class OperationMetrics {
+    private final String method;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    OperationMetrics(String method) {
+        this.method = method;
+    }
+
+    public void record(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    public void failed() {
+        errors.increment();
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long calls() {
+        return latency.count();
+    }
+
+    public OperationStats stats() {
+        long[] percentiles = latency.percentiles(0.5, 0.99, 0.999);
+        return new OperationStats(method, latency.count(), errors.sum(), latency.mean(),
+            percentiles[0], percentiles[1], percentiles[2], latency.max());
+    }
+}
@@ -0,0 +1,90 @@
+package com.ticketsystem.core.metrics;
+
+import com.ticketsystem.api.metrics.OperationStats;
+import com.ticketsystem.api.metrics.TicketMetrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Registry of the per-method metrics, published as the {@link TicketMetrics}
+ * service and, when enabled, as a platform MXBean. Operations are created up
+ * front by the instrumented service, so reading them takes no locks.
+ */
+public class TicketMetricsImpl implements TicketMetrics, TicketMetricsMXBean {
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final Supplier<Map<String, Long>> gauges;
+
+    public TicketMetricsImpl(Supplier<Map<String, Long>> gauges) {
+        this.gauges = gauges;
+    }
+
+    OperationMetrics operation(String method) {
+        return operations.computeIfAbsent(method, OperationMetrics::new);
+    }
+
+    @Override
+    public Map<String, OperationStats> getOperations() {
+        Map<String, OperationStats> result = new TreeMap<>();
+        for (OperationMetrics operation : operations.values()) {
+            if (operation.calls() > 0) {
+                result.put(operation.getMethod(), operation.stats());
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public OperationStats getOperation(String method) {
+        OperationMetrics operation = operations.get(method);
+        return operation != null ? operation.stats() : null;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        return gauges.get();
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts() {
+        return collect(OperationStats::getCalls);
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        return collect(OperationStats::getErrors);
+    }
+
+    @Override
+    public Map<String, Long> getP50Micros() {
+        return collect(stats -> TimeUnit.NANOSECONDS.toMicros(stats.getP50Nanos()));
+    }
+
+    @Override
+    public Map<String, Long> getP99Micros() {
+        return collect(stats -> TimeUnit.NANOSECONDS.toMicros(stats.getP99Nanos()));
+    }
+
+    @Override
+    public Map<String, Long> getP999Micros() {
+        return collect(stats -> TimeUnit.NANOSECONDS.toMicros(stats.getP999Nanos()));
+    }
+
+    @Override
+    public Map<String, Long> getMaxMicros() {
+        return collect(stats -> TimeUnit.NANOSECONDS.toMicros(stats.getMaxNanos()));
+    }
+
+    private Map<String, Long> collect(ToLongFunction<OperationStats> value) {
+        Map<String, Long> result = new TreeMap<>();
+        for (OperationStats stats : getOperations().values()) {
+            result.put(stats.getMethod(), value.applyAsLong(stats));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ticketsystem.core.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link TicketMetricsImpl}, registered as
+ * {@code com.ticketsystem:type=TicketMetrics} when enabled. Every attribute is
+ * keyed by service method, except the gauges.
+ */
+public interface TicketMetricsMXBean {
+    Map<String, Long> getCallCounts();
+
+    Map<String, Long> getErrorCounts();
+
+    Map<String, Long> getP50Micros();
+
+    Map<String, Long> getP99Micros();
+
+    Map<String, Long> getP999Micros();
+
+    Map<String, Long> getMaxMicros();
+
+    Map<String, Long> getGauges();
+}
@@ -0,0 +1,26 @@
+package com.ticketsystem.core.persistence;
+
+import java.util.Locale;
+
+/**
+ * How long a write waits for the write-ahead log before it returns.
+ */
+public enum Durability {
+    // Every write forces the log to disk itself before returning
+    SYNC,
+    // Writers wait for a shared flusher that forces all pending records with one fsync
+    GROUP,
+    // Writers never wait; the flusher forces the log periodically
+    ASYNC;
+
+    public static Durability parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return GROUP;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown durability level: " + value);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.ticketsystem.core.persistence;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TicketJournal} backed by a {@link WriteAheadLog}; journal positions are log sequence numbers.
+ * Checkpoints go to a {@link SnapshotStore} in the same directory, and log segments
+ * older than the retained snapshots are deleted.
+ */
+public class LogTicketJournal implements TicketJournal {
+    // The previous snapshot is kept, with its log tail, in case the newest one is damaged
+    private static final int RETAINED_SNAPSHOTS = 2;
+
+    private final WriteAheadLog log;
+    private final SnapshotStore snapshots;
+    private long lastCheckpoint;
+
+    public LogTicketJournal(WriteAheadLog log, SnapshotStore snapshots) {
+        this.log = log;
+        this.snapshots = snapshots;
+    }
+
+    public static LogTicketJournal open(Path directory, Durability durability) throws IOException {
+        return new LogTicketJournal(WriteAheadLog.open(directory, durability), new SnapshotStore(directory));
+    }
+
+    @Override
+    public long ticketSaved(TicketSnapshot ticket) {
+        return log.append(RecordCodec.encodeTicket(ticket));
+    }
+
+    @Override
+    public long replySaved(String ticketId, Reply reply) {
+        return log.append(RecordCodec.encodeReply(ticketId, reply));
+    }
+
+    @Override
+    public long userSaved(User user) {
+        return log.append(RecordCodec.encodeUser(user));
+    }
+
+    @Override
+    public long eventSaved(TicketEvent event) {
+        return log.append(RecordCodec.encodeEvent(event));
+    }
+
+    @Override
+    public long ticketsSaved(List<TicketSnapshot> tickets) {
+        List<byte[]> records = new ArrayList<>(tickets.size());
+        for (TicketSnapshot ticket : tickets) {
+            records.add(RecordCodec.encodeTicket(ticket));
+        }
+        return log.appendAll(records);
+    }
+
+    @Override
+    public long repliesSaved(String ticketId, List<Reply> replies) {
+        List<byte[]> records = new ArrayList<>(replies.size());
+        for (Reply reply : replies) {
+            records.add(RecordCodec.encodeReply(ticketId, reply));
+        }
+        return log.appendAll(records);
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        log.awaitDurable(position);
+    }
+
+    @Override
+    public long position() {
+        return log.lastLsn();
+    }
+
+    @Override
+    public synchronized void checkpoint(long position, SnapshotStore.StateSource state) throws IOException {
+        if (position <= lastCheckpoint) {
+            return;
+        }
+        // Records after the snapshot start a new segment, so this one can go at the next checkpoint
+        log.requestRoll();
+        snapshots.write(position, state);
+        lastCheckpoint = position;
+
+        List<Long> retained = snapshots.list();
+        while (retained.size() > RETAINED_SNAPSHOTS) {
+            snapshots.delete(retained.remove(0));
+        }
+        log.deleteSegmentsThrough(retained.get(0));
+    }
+
+    @Override
+    public void replay(RecoveryHandler handler) throws IOException {
+        long started = System.nanoTime();
+        long snapshotLsn = snapshots.loadLatest(handler);
+        long loaded = System.nanoTime();
+
+        long[] replayed = new long[1];
+        try {
+            log.replay(snapshotLsn + 1, record -> {
+                try {
+                    RecordCodec.decode(record, handler);
+                    replayed[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.advanceTo(snapshotLsn);
+        synchronized (this) {
+            lastCheckpoint = snapshotLsn;
+        }
+
+        System.out.println("Ticket journal recovered: snapshot at LSN " + snapshotLsn
+                + " loaded in " + TimeUnit.NANOSECONDS.toMillis(loaded - started) + " ms, "
+                + replayed[0] + " log records replayed in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loaded) + " ms");
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+}
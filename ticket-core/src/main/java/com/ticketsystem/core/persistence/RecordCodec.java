@@ -0,0 +1,206 @@
+package com.ticketsystem.core.persistence;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * Binary encoding of journal records. Strings are length-prefixed UTF-8, with
+ * -1 standing for null, so the format has no 64KB limit like writeUTF.
+ */
+final class RecordCodec {
+    static final byte TICKET = 1;
+    static final byte REPLY = 2;
+    static final byte USER = 3;
+    static final byte EVENT = 4;
+
+    // Event types are stored by ordinal, so new types may only be appended to the enum
+    private static final TicketEvent.Type[] EVENT_TYPES = TicketEvent.Type.values();
+
+    private RecordCodec() {
+    }
+
+    static byte[] encodeTicket(TicketSnapshot ticket) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TICKET);
+            writeTicket(out, ticket);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeReply(String ticketId, Reply reply) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(REPLY);
+            writeString(out, ticketId);
+            writeReply(out, reply);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeUser(User user) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(USER);
+            writeUser(out, user);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeEvent(TicketEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(EVENT);
+            writeEvent(out, event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static void decode(byte[] record, TicketJournal.RecoveryHandler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        switch (type) {
+            case TICKET:
+                handler.restoreTicket(readTicket(in));
+                break;
+            case REPLY:
+                String ticketId = readString(in);
+                handler.restoreReply(ticketId, readReply(in));
+                break;
+            case USER:
+                handler.restoreUser(readUser(in));
+                break;
+            case EVENT:
+                handler.restoreEvent(readEvent(in));
+                break;
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    static void writeTicket(DataOutput out, TicketSnapshot ticket) throws IOException {
+        writeString(out, ticket.getId());
+        out.writeLong(ticket.getVersion());
+        writeString(out, ticket.getTitle());
+        writeString(out, ticket.getDescription());
+        writeString(out, ticket.getStatus());
+        writeString(out, ticket.getAssignedTo());
+        out.writeLong(ticket.getCreatedAtMillis());
+        out.writeLong(ticket.getLastUpdatedAtMillis());
+        out.writeLong(ticket.getResolvedAtMillis());
+    }
+
+    static TicketSnapshot readTicket(DataInput in) throws IOException {
+        return TicketSnapshot.builder(readString(in))
+            .version(in.readLong())
+            .title(readString(in))
+            .description(readString(in))
+            .status(readString(in))
+            .assignedTo(readString(in))
+            .createdAt(in.readLong())
+            .lastUpdatedAt(in.readLong())
+            .resolvedAt(in.readLong())
+            .build();
+    }
+
+    static void writeReply(DataOutput out, Reply reply) throws IOException {
+        writeString(out, reply.getId());
+        writeString(out, reply.getContent());
+        writeString(out, reply.getParentId());
+        out.writeLong(reply.getTimestamp() != null ? reply.getTimestamp().getTime() : 0);
+        out.writeLong(reply.getLastEditedAt() != null ? reply.getLastEditedAt().getTime() : 0);
+    }
+
+    static Reply readReply(DataInput in) throws IOException {
+        Reply reply = new Reply();
+        reply.setId(readString(in));
+        reply.setContent(readString(in));
+        reply.setParentId(readString(in));
+        long timestamp = in.readLong();
+        long lastEditedAt = in.readLong();
+        reply.setTimestamp(timestamp != 0 ? new Date(timestamp) : null);
+        reply.setLastEditedAt(lastEditedAt != 0 ? new Date(lastEditedAt) : null);
+        reply.setChildren(new ArrayList<>());
+        return reply;
+    }
+
+    static void writeUser(DataOutput out, User user) throws IOException {
+        writeString(out, user.getId());
+        writeString(out, user.getUsername());
+        writeString(out, user.getEmail());
+        writeString(out, user.getRole());
+        writeString(out, user.getDepartment());
+    }
+
+    static User readUser(DataInput in) throws IOException {
+        User user = new User();
+        user.setId(readString(in));
+        user.setUsername(readString(in));
+        user.setEmail(readString(in));
+        user.setRole(readString(in));
+        user.setDepartment(readString(in));
+        return user;
+    }
+
+    static void writeEvent(DataOutput out, TicketEvent event) throws IOException {
+        out.writeLong(event.getSequence());
+        out.writeByte(event.getType().ordinal());
+        writeString(out, event.getTicketId());
+        out.writeLong(event.getTicketVersion());
+        writeString(out, event.getReplyId());
+        writeString(out, event.getAssignedTo());
+        out.writeLong(event.getTimestampMillis());
+    }
+
+    static TicketEvent readEvent(DataInput in) throws IOException {
+        long sequence = in.readLong();
+        int type = in.readByte();
+        if (type < 0 || type >= EVENT_TYPES.length) {
+            throw new IOException("Unknown ticket event type: " + type);
+        }
+        return new TicketEvent(sequence, EVENT_TYPES[type], readString(in), in.readLong(), readString(in),
+            readString(in), in.readLong());
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,204 @@
+package com.ticketsystem.core.persistence;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.User;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Point-in-time images of the ticket, reply and user maps, one file per
+ * checkpoint named after the last log sequence number it covers. The file is a
+ * stream of tagged records (ticket with its replies, user, retained change
+ * event) ending with an end tag and a crc32c of everything before it. Files are
+ * written under a temporary name and renamed, so a crash never leaves a partial
+ * snapshot behind.
+ */
+public class SnapshotStore {
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x544b534e; // "TKSN"
+    private static final int FORMAT = 1;
+    private static final byte END = 0;
+    private static final byte TICKET = 1;
+    private static final byte USER = 2;
+    private static final byte EVENT = 3;
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Source of the state to write. Iteration may run alongside writers; the
+     * caller guarantees every change up to the snapshot LSN is already visible.
+     */
+    public interface StateSource {
+        Iterable<TicketSnapshot> tickets();
+
+        // Replies of the ticket in arrival order, so parents come before children
+        List<Reply> replies(String ticketId);
+
+        Iterable<User> users();
+
+        // Recent change events in sequence order, kept so listeners can resume across restarts
+        Iterable<TicketEvent> events();
+    }
+
+    public void write(long lsn, StateSource source) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(fileName(lsn));
+        Path temp = directory.resolve(fileName(lsn) + ".tmp");
+
+        CRC32C crc = new CRC32C();
+        try (OutputStream file = Files.newOutputStream(temp);
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(lsn);
+            for (TicketSnapshot ticket : source.tickets()) {
+                out.writeByte(TICKET);
+                RecordCodec.writeTicket(out, ticket);
+                List<Reply> replies = source.replies(ticket.getId());
+                out.writeInt(replies.size());
+                for (Reply reply : replies) {
+                    RecordCodec.writeReply(out, reply);
+                }
+            }
+            for (User user : source.users()) {
+                out.writeByte(USER);
+                RecordCodec.writeUser(out, user);
+            }
+            for (TicketEvent event : source.events()) {
+                out.writeByte(EVENT);
+                RecordCodec.writeEvent(out, event);
+            }
+            out.writeByte(END);
+            out.flush();
+            // The trailer is not part of the checksum
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the snapshot contents are still forced
+        }
+    }
+
+    /**
+     * Loads the newest intact snapshot into the handler and returns the LSN it
+     * covers, or 0 when there is none. A corrupt snapshot falls back to the one before it.
+     */
+    public long loadLatest(TicketJournal.RecoveryHandler handler) throws IOException {
+        List<Long> available = list();
+        for (int i = available.size() - 1; i >= 0; i--) {
+            Path path = directory.resolve(fileName(available.get(i)));
+            if (isIntact(path)) {
+                return load(path, handler);
+            }
+            System.out.println("Skipping corrupt ticket snapshot " + path);
+        }
+        return 0;
+    }
+
+    // Snapshot LSNs, oldest first
+    public List<Long> list() throws IOException {
+        List<Long> lsns = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return lsns;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                lsns.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        lsns.sort(null);
+        return lsns;
+    }
+
+    public void delete(long lsn) throws IOException {
+        Files.deleteIfExists(directory.resolve(fileName(lsn)));
+    }
+
+    private boolean isIntact(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size < Integer.BYTES) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+             CheckedInputStream checked = new CheckedInputStream(file, crc)) {
+            byte[] buffer = new byte[1 << 16];
+            long remaining = size - Integer.BYTES;
+            while (remaining > 0) {
+                int read = checked.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    return false;
+                }
+                remaining -= read;
+            }
+            return new DataInputStream(file).readInt() == (int) crc.getValue();
+        }
+    }
+
+    private static long load(Path path, TicketJournal.RecoveryHandler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException("Not a ticket snapshot: " + path);
+            }
+            long lsn = in.readLong();
+            while (true) {
+                byte tag = in.readByte();
+                switch (tag) {
+                    case END:
+                        return lsn;
+                    case TICKET:
+                        TicketSnapshot ticket = RecordCodec.readTicket(in);
+                        handler.restoreTicket(ticket);
+                        int replies = in.readInt();
+                        for (int i = 0; i < replies; i++) {
+                            handler.restoreReply(ticket.getId(), RecordCodec.readReply(in));
+                        }
+                        break;
+                    case USER:
+                        handler.restoreUser(RecordCodec.readUser(in));
+                        break;
+                    case EVENT:
+                        handler.restoreEvent(RecordCodec.readEvent(in));
+                        break;
+                    default:
+                        throw new IOException("Unknown snapshot record tag " + tag + " in " + path);
+                }
+            }
+        }
+    }
+
+    private static String fileName(long lsn) {
+        return String.format("%s%020d%s", PREFIX, lsn, SUFFIX);
+    }
+}
@@ -0,0 +1,105 @@
+package com.ticketsystem.core.persistence;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Durable record of ticket mutations. The record methods are called while the
+ * mutated ticket is still locked, so records for one ticket are journaled in
+ * the order they were applied; they return a position to pass to
+ * {@link #awaitDurable(long)} once the lock is released.
+ */
+public interface TicketJournal extends Closeable {
+    TicketJournal NONE = new TicketJournal() {
+        @Override
+        public long ticketSaved(TicketSnapshot ticket) { return 0; }
+
+        @Override
+        public long replySaved(String ticketId, Reply reply) { return 0; }
+
+        @Override
+        public long userSaved(User user) { return 0; }
+
+        @Override
+        public long eventSaved(TicketEvent event) { return 0; }
+
+        @Override
+        public void awaitDurable(long position) { }
+
+        @Override
+        public long position() { return 0; }
+
+        @Override
+        public void checkpoint(long position, SnapshotStore.StateSource state) { }
+
+        @Override
+        public void replay(RecoveryHandler handler) { }
+
+        @Override
+        public void close() { }
+    };
+
+    // Full state of the ticket after the change, so replaying a record is idempotent
+    long ticketSaved(TicketSnapshot ticket);
+
+    // Full state of a new or edited reply
+    long replySaved(String ticketId, Reply reply);
+
+    // Full state of a new or re-registered user
+    long userSaved(User user);
+
+    // Change event, journaled after the record of the change it describes
+    long eventSaved(TicketEvent event);
+
+    // Several records in one go, for bulk operations; returns the position of the last
+    default long ticketsSaved(List<TicketSnapshot> tickets) {
+        long position = 0;
+        for (TicketSnapshot ticket : tickets) {
+            position = ticketSaved(ticket);
+        }
+        return position;
+    }
+
+    default long repliesSaved(String ticketId, List<Reply> replies) {
+        long position = 0;
+        for (Reply reply : replies) {
+            position = replySaved(ticketId, reply);
+        }
+        return position;
+    }
+
+    void awaitDurable(long position);
+
+    // Position of the last record journaled so far
+    long position();
+
+    /**
+     * Saves the state as covering every record up to the position and drops log
+     * data that is no longer needed. Every change journaled up to the position
+     * must already be visible in the state.
+     */
+    void checkpoint(long position, SnapshotStore.StateSource state) throws IOException;
+
+    // Restores the latest checkpoint, then the records journaled after it
+    void replay(RecoveryHandler handler) throws IOException;
+
+    /**
+     * Receives journaled state on replay. Records may repeat state that was
+     * already restored and must be applied as upserts.
+     */
+    interface RecoveryHandler {
+        void restoreTicket(TicketSnapshot ticket);
+
+        void restoreReply(String ticketId, Reply reply);
+
+        void restoreUser(User user);
+
+        void restoreEvent(TicketEvent event);
+    }
+}
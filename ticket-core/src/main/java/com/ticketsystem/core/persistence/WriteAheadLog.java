@@ -0,0 +1,506 @@
+package com.ticketsystem.core.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, checksummed log of opaque records split into segment files.
+ * Each record is framed as [length][crc32c][payload] and numbered by a log
+ * sequence number (LSN) starting at 1. A segment is named after the LSN of its
+ * first record. Appends only copy into an in-memory batch; the batch is written
+ * and forced to disk by whichever thread flushes, so concurrent writers share
+ * one fsync (group commit).
+ * <p>
+ * Writers may be virtual threads, so every lock here is a ReentrantLock rather
+ * than a monitor: on JDK 21 to 23 a virtual thread blocked in a synchronized
+ * block, or waiting on a monitor for its group commit, pins its carrier thread,
+ * and a burst of writers could occupy every carrier.
+ */
+public class WriteAheadLog implements Closeable {
+    static final String SEGMENT_PREFIX = "wal-";
+    static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final long ASYNC_FLUSH_INTERVAL_MILLIS = 200;
+
+    private final Path directory;
+    private final Durability durability;
+    private final long segmentBytes;
+
+    // Pending batch; guarded by appendLock
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private byte[] pending = new byte[64 * 1024];
+    private int pendingSize;
+    private long pendingFirstLsn;
+    private long nextLsn;
+
+    // Current segment; guarded by writeLock, which is always taken before appendLock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private FileChannel segment;
+    private long segmentSize;
+    private byte[] spare;
+    private volatile boolean rollRequested;
+
+    private final ReentrantLock durableLock = new ReentrantLock();
+    // Signalled when durableLsn, requestedLsn, failure or closing changes; guarded by durableLock
+    private final Condition durableChanged = durableLock.newCondition();
+    private volatile long durableLsn;
+    private long requestedLsn;
+    private volatile IOException failure;
+    private volatile boolean closing;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    private WriteAheadLog(Path directory, Durability durability, long segmentBytes, long lastLsn) {
+        this.directory = directory;
+        this.durability = durability;
+        this.segmentBytes = segmentBytes;
+        this.nextLsn = lastLsn + 1;
+        this.pendingFirstLsn = nextLsn;
+        this.durableLsn = lastLsn;
+
+        if (durability != Durability.SYNC) {
+            flusher = new Thread(this::runFlusher, "ticket-wal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    public static WriteAheadLog open(Path directory, Durability durability) throws IOException {
+        return open(directory, durability, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens the log in the directory, cutting off a torn record at the end of the
+     * last segment left by a crash. A last segment without a single intact record
+     * (a crash right after it was created) is deleted, since the next segment
+     * takes its name. New records always go to a fresh segment.
+     */
+    public static WriteAheadLog open(Path directory, Durability durability, long segmentBytes) throws IOException {
+        Files.createDirectories(directory);
+        long lastLsn = 0;
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            ScanResult scan = scan(path, baseLsn(path), null);
+            if (scan.validBytes < Files.size(path) || scan.records == 0) {
+                if (i != segments.size() - 1) {
+                    throw new IOException("Corrupt write-ahead log segment: " + path);
+                }
+                if (scan.records == 0) {
+                    Files.delete(path);
+                    forceDirectory(directory);
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(scan.validBytes);
+                    channel.force(true);
+                }
+            }
+            if (scan.records > 0) {
+                lastLsn = baseLsn(path) + scan.records - 1;
+            }
+        }
+        return new WriteAheadLog(directory, durability, segmentBytes, lastLsn);
+    }
+
+    // Returns the LSN of the record; it is durable once awaitDurable(lsn) returns
+    public long append(byte[] payload) {
+        int checksum = checksum(payload);
+        appendLock.lock();
+        try {
+            checkUsable();
+            return frame(payload, checksum);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Appends the records with consecutive LSNs and returns the LSN of the last one
+    public long appendAll(List<byte[]> payloads) {
+        int[] checksums = new int[payloads.size()];
+        for (int i = 0; i < checksums.length; i++) {
+            checksums[i] = checksum(payloads.get(i));
+        }
+        appendLock.lock();
+        try {
+            checkUsable();
+            long lsn = nextLsn - 1;
+            for (int i = 0; i < checksums.length; i++) {
+                lsn = frame(payloads.get(i), checksums[i]);
+            }
+            return lsn;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    // Called with appendLock held
+    private long frame(byte[] payload, int checksum) {
+        int required = pendingSize + HEADER_BYTES + payload.length;
+        if (required > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(required, pending.length * 2));
+        }
+        ByteBuffer frame = ByteBuffer.wrap(pending, pendingSize, HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt(checksum).put(payload);
+        pendingSize = required;
+        return nextLsn++;
+    }
+
+    public void awaitDurable(long lsn) {
+        if (lsn <= durableLsn) {
+            return;
+        }
+        switch (durability) {
+            case SYNC:
+                try {
+                    flush();
+                } catch (IOException e) {
+                    throw fail(e);
+                }
+                break;
+            case GROUP:
+                durableLock.lock();
+                try {
+                    requestedLsn = Math.max(requestedLsn, lsn);
+                    durableChanged.signalAll();
+                    while (durableLsn < lsn && failure == null && !closed) {
+                        durableChanged.await();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for write-ahead log", e);
+                } finally {
+                    durableLock.unlock();
+                }
+                break;
+            case ASYNC:
+                return;
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+    }
+
+    // Highest LSN handed out so far
+    public long lastLsn() {
+        appendLock.lock();
+        try {
+            return nextLsn - 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the sequence past lsn when the log ends before it, e.g. when a snapshot
+     * covers records that were lost from an unforced tail. Call before appending.
+     */
+    public void advanceTo(long lsn) {
+        appendLock.lock();
+        try {
+            if (pendingSize == 0 && nextLsn <= lsn) {
+                nextLsn = lsn + 1;
+                pendingFirstLsn = nextLsn;
+                durableLsn = lsn;
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // The next flush starts a new segment, so the current one can be compacted away
+    public void requestRoll() {
+        rollRequested = true;
+    }
+
+    /**
+     * Deletes segments whose records all have an LSN of at most lsn. The last
+     * segment is always kept, as it is the one being written.
+     */
+    public int deleteSegmentsThrough(long lsn) throws IOException {
+        List<Path> segments = segments(directory);
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (baseLsn(segments.get(i + 1)) > lsn + 1) {
+                break;
+            }
+            Files.delete(segments.get(i));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Feeds every intact record with an LSN of at least fromLsn to the handler, in LSN order.
+     */
+    public void replay(long fromLsn, Consumer<byte[]> handler) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            // Skip segments that end before fromLsn: the next segment starts at or below it
+            if (i + 1 < segments.size() && baseLsn(segments.get(i + 1)) <= fromLsn) {
+                continue;
+            }
+            long base = baseLsn(path);
+            scan(path, base, new Consumer<>() {
+                long lsn = base;
+
+                @Override
+                public void accept(byte[] payload) {
+                    if (lsn++ >= fromLsn) {
+                        handler.accept(payload);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closing) {
+                return;
+            }
+            closing = true;
+        } finally {
+            appendLock.unlock();
+        }
+        // Not interrupted: an interrupt would close the channel under a write in progress
+        signalDurable();
+        if (flusher != null) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            signalDurable();
+            writeLock.lock();
+            try {
+                if (segment != null) {
+                    segment.close();
+                    segment = null;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (failure == null) {
+            durableLock.lock();
+            try {
+                if (durability == Durability.ASYNC) {
+                    durableChanged.await(ASYNC_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } else {
+                    while (!closing && requestedLsn <= durableLsn) {
+                        durableChanged.await();
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                durableLock.unlock();
+            }
+            if (closing) {
+                // close() flushes whatever is left
+                return;
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+        }
+    }
+
+    // Writes and forces the pending batch; the LSNs it covers become durable together
+    private void flush() throws IOException {
+        writeLock.lock();
+        try {
+            byte[] batch;
+            int size;
+            long firstLsn;
+            long lastLsn;
+            appendLock.lock();
+            try {
+                if (pendingSize == 0) {
+                    return;
+                }
+                batch = pending;
+                size = pendingSize;
+                firstLsn = pendingFirstLsn;
+                lastLsn = nextLsn - 1;
+                pending = spare != null && spare.length >= batch.length ? spare : new byte[batch.length];
+                pendingSize = 0;
+                pendingFirstLsn = nextLsn;
+            } finally {
+                appendLock.unlock();
+            }
+
+            if (segment == null || segmentSize >= segmentBytes || rollRequested) {
+                rollRequested = false;
+                roll(firstLsn);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(batch, 0, size);
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            segment.force(false);
+            segmentSize += size;
+            spare = batch;
+            durableLsn = lastLsn;
+        } finally {
+            writeLock.unlock();
+        }
+        signalDurable();
+    }
+
+    private void signalDurable() {
+        durableLock.lock();
+        try {
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void roll(long firstLsn) throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        Path path = directory.resolve(segmentName(firstLsn));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentSize = 0;
+        // Make the new directory entry durable as well
+        forceDirectory(directory);
+    }
+
+    private static void forceDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the segment contents are still forced
+        }
+    }
+
+    // Marks the log unusable and wakes every waiter
+    private UncheckedIOException fail(IOException e) {
+        failure = e;
+        signalDurable();
+        return new UncheckedIOException("Write-ahead log failed", e);
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+        if (closing) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+
+    static String segmentName(long baseLsn) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, baseLsn, SEGMENT_SUFFIX);
+    }
+
+    static long baseLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        segments.sort((a, b) -> Long.compare(baseLsn(a), baseLsn(b)));
+        return segments;
+    }
+
+    // Reads records up to the first torn or corrupt one
+    private static ScanResult scan(Path path, long baseLsn, Consumer<byte[]> handler) throws IOException {
+        ScanResult result = new ScanResult();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            while (result.validBytes + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, result.validBytes);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < 0 || result.validBytes + HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, result.validBytes + HEADER_BYTES);
+                crc.reset();
+                crc.update(payload.array(), 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                if (handler != null) {
+                    handler.accept(payload.array());
+                }
+                result.validBytes += HEADER_BYTES + length;
+                result.records++;
+            }
+        }
+        return result;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of write-ahead log segment");
+            }
+        }
+    }
+
+    private static final class ScanResult {
+        long validBytes;
+        long records;
+    }
+}
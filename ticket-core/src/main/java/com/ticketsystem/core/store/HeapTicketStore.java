@@ -0,0 +1,42 @@
+package com.ticketsystem.core.store;
+
+import com.ticketsystem.api.model.TicketSnapshot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Default store keeping every snapshot on the heap.
+ */
+public class HeapTicketStore implements TicketStore {
+    private final Map<String, TicketSnapshot> tickets = new ConcurrentHashMap<>();
+
+    @Override
+    public TicketSnapshot get(String id) {
+        return tickets.get(id);
+    }
+
+    @Override
+    public TicketSnapshot compute(String id, BiFunction<String, TicketSnapshot, TicketSnapshot> function) {
+        return tickets.compute(id,
+            (key, previous) -> TicketStore.requireTicket(key, function.apply(key, previous)));
+    }
+
+    @Override
+    public TicketSnapshot computeIfPresent(String id, BiFunction<String, TicketSnapshot, TicketSnapshot> function) {
+        return tickets.computeIfPresent(id,
+            (key, previous) -> TicketStore.requireTicket(key, function.apply(key, previous)));
+    }
+
+    @Override
+    public Stream<TicketSnapshot> stream() {
+        return tickets.values().stream();
+    }
+
+    @Override
+    public int size() {
+        return tickets.size();
+    }
+}
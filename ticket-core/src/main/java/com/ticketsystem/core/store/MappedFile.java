@@ -0,0 +1,126 @@
+package com.ticketsystem.core.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * File mapped into memory in fixed-size chunks, so it can grow past the 2GB
+ * limit of a single mapping. Chunks are mapped on first use and never moved.
+ * Callers keep every value inside one chunk and synchronize access themselves.
+ * <p>
+ * A chunk is only unmapped once it is garbage collected, and until then Windows
+ * refuses to delete or truncate the file. Closing drops every chunk and leaves a
+ * file it cannot delete yet to the JVM exit; a new file replaces one that is
+ * still mapped with a fresh file beside it.
+ */
+final class MappedFile implements Closeable {
+    private final Path path;
+    private final FileChannel channel;
+    private final int chunkBytes;
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    // Starts from an empty file; the contents are rebuilt from the journal on every start
+    MappedFile(Path path, int chunkBytes) throws IOException {
+        this.path = replace(path);
+        this.chunkBytes = chunkBytes;
+        this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // The file of an earlier store in this process may still be mapped
+    private static Path replace(Path path) throws IOException {
+        try {
+            Files.deleteIfExists(path);
+            return path;
+        } catch (IOException e) {
+            Path fresh = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName() + ".", "");
+            System.out.println("Cannot replace " + path + " while it is still mapped, using " + fresh);
+            return fresh;
+        }
+    }
+
+    int chunkBytes() {
+        return chunkBytes;
+    }
+
+    long getLong(long offset) {
+        return chunk(offset).getLong(position(offset));
+    }
+
+    void putLong(long offset, long value) {
+        chunk(offset).putLong(position(offset), value);
+    }
+
+    int getInt(long offset) {
+        return chunk(offset).getInt(position(offset));
+    }
+
+    void putInt(long offset, int value) {
+        chunk(offset).putInt(position(offset), value);
+    }
+
+    byte[] getBytes(long offset, int length) {
+        ByteBuffer view = chunk(offset).duplicate();
+        view.position(position(offset));
+        byte[] bytes = new byte[length];
+        view.get(bytes);
+        return bytes;
+    }
+
+    void putBytes(long offset, byte[] bytes) {
+        ByteBuffer view = chunk(offset).duplicate();
+        view.position(position(offset));
+        view.put(bytes);
+    }
+
+    private int position(long offset) {
+        return (int) (offset % chunkBytes);
+    }
+
+    private MappedByteBuffer chunk(long offset) {
+        int index = (int) (offset / chunkBytes);
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        return map(index);
+    }
+
+    private synchronized MappedByteBuffer map(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+        try {
+            for (int i = current.length; i <= index; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * chunkBytes, chunkBytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + path, e);
+        }
+        chunks = grown;
+        return grown[index];
+    }
+
+    // Chunks a reader still holds stay valid until they are garbage collected
+    @Override
+    public void close() throws IOException {
+        chunks = new MappedByteBuffer[0];
+        channel.close();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            path.toFile().deleteOnExit();
+            System.out.println("Cannot delete " + path + " while it is still mapped, deleting it on exit");
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.ticketsystem.core.store;
+
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.TicketStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Ticket store for large datasets that keeps tickets off the Java heap. Each
+ * ticket is a fixed-layout record in a memory-mapped file:
+ *
+ * <pre>
+ *  0  id (UUID, two longs)     16  version
+ * 24  createdAt                32  lastUpdatedAt       40  resolvedAt (epoch millis, 0 = not set)
+ * 48  title offset             56  description offset  (into the string heap)
+ * 64  status ordinal           68  assignee code       (interned symbol)
+ * </pre>
+ *
+ * Only recently used tickets are kept as snapshot objects, in a bounded LRU
+ * cache. Tickets are split over lock stripes by id; a stripe owns the lookup
+ * table and the cached snapshots of its tickets, and its lock is held while a
+ * ticket's record is read or written. Ticket ids must be UUIDs.
+ */
+public class MappedTicketStore implements TicketStore {
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private static final int ID_MSB = 0;
+    private static final int ID_LSB = 8;
+    private static final int VERSION = 16;
+    private static final int CREATED_AT = 24;
+    private static final int LAST_UPDATED_AT = 32;
+    private static final int RESOLVED_AT = 40;
+    private static final int TITLE = 48;
+    private static final int DESCRIPTION = 56;
+    private static final int STATUS = 64;
+    private static final int ASSIGNEE = 68;
+    private static final int RECORD_BYTES = 72;
+    private static final int RECORDS_PER_CHUNK = 1 << 19;
+
+    private static final int STRIPES = 64;
+
+    private final MappedFile records;
+    private final StringHeap strings;
+    private final SymbolTable assignees = new SymbolTable();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger slotCount = new AtomicInteger();
+
+    public MappedTicketStore(Path directory) throws IOException {
+        this(directory, DEFAULT_CACHE_SIZE);
+    }
+
+    public MappedTicketStore(Path directory, int cacheSize) throws IOException {
+        Files.createDirectories(directory);
+        this.records = new MappedFile(directory.resolve("tickets.dat"), RECORD_BYTES * RECORDS_PER_CHUNK);
+        this.strings = new StringHeap(directory.resolve("strings.dat"));
+        int perStripe = Math.max(1, cacheSize / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    @Override
+    public TicketSnapshot get(String id) {
+        Key key = Key.parse(id);
+        if (key == null) {
+            return null;
+        }
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            return current(stripe, id, stripe.find(key));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public TicketSnapshot compute(String id, BiFunction<String, TicketSnapshot, TicketSnapshot> function) {
+        return update(id, function, false);
+    }
+
+    @Override
+    public TicketSnapshot computeIfPresent(String id, BiFunction<String, TicketSnapshot, TicketSnapshot> function) {
+        return update(id, function, true);
+    }
+
+    private TicketSnapshot update(String id, BiFunction<String, TicketSnapshot, TicketSnapshot> function, boolean ifPresent) {
+        Key key = Key.parse(id);
+        if (key == null) {
+            if (ifPresent) {
+                return null;
+            }
+            throw new IllegalArgumentException("Mapped ticket store requires UUID ticket ids: " + id);
+        }
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(key);
+            TicketSnapshot previous = current(stripe, id, slot);
+            if (previous == null && ifPresent) {
+                return null;
+            }
+            TicketSnapshot next = TicketStore.requireTicket(id, function.apply(id, previous));
+            if (next == previous) {
+                return previous;
+            }
+            // Text that did not change keeps its place in the string heap
+            long title = previous != null && Objects.equals(previous.getTitle(), next.getTitle())
+                ? records.getLong((long) slot * RECORD_BYTES + TITLE)
+                : strings.append(next.getTitle());
+            long description = previous != null && Objects.equals(previous.getDescription(), next.getDescription())
+                ? records.getLong((long) slot * RECORD_BYTES + DESCRIPTION)
+                : strings.append(next.getDescription());
+            if (slot < 0) {
+                slot = slotCount.getAndIncrement();
+                long base = (long) slot * RECORD_BYTES;
+                records.putLong(base + ID_MSB, key.msb);
+                records.putLong(base + ID_LSB, key.lsb);
+                stripe.insert(key, slot);
+            }
+            long base = (long) slot * RECORD_BYTES;
+            records.putLong(base + VERSION, next.getVersion());
+            records.putLong(base + CREATED_AT, next.getCreatedAtMillis());
+            records.putLong(base + LAST_UPDATED_AT, next.getLastUpdatedAtMillis());
+            records.putLong(base + RESOLVED_AT, next.getResolvedAtMillis());
+            records.putLong(base + TITLE, title);
+            records.putLong(base + DESCRIPTION, description);
+            records.putInt(base + STATUS, next.getTicketStatus() != null ? next.getTicketStatus().ordinal() : -1);
+            records.putInt(base + ASSIGNEE, assignees.code(next.getAssignedTo()));
+            stripe.cache.put(id, next);
+            return next;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Called with the stripe locked
+    private TicketSnapshot current(Stripe stripe, String id, int slot) {
+        if (slot < 0) {
+            return null;
+        }
+        TicketSnapshot cached = stripe.cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        TicketSnapshot ticket = read(id, slot);
+        stripe.cache.put(id, ticket);
+        return ticket;
+    }
+
+    private TicketSnapshot read(String id, int slot) {
+        long base = (long) slot * RECORD_BYTES;
+        return TicketSnapshot.builder(id)
+            .version(records.getLong(base + VERSION))
+            .title(strings.read(records.getLong(base + TITLE)))
+            .description(strings.read(records.getLong(base + DESCRIPTION)))
+            .status(status(records.getInt(base + STATUS)))
+            .assignedTo(assignees.value(records.getInt(base + ASSIGNEE)))
+            .createdAt(records.getLong(base + CREATED_AT))
+            .lastUpdatedAt(records.getLong(base + LAST_UPDATED_AT))
+            .resolvedAt(records.getLong(base + RESOLVED_AT))
+            .build();
+    }
+
+    private static TicketStatus status(int ordinal) {
+        return ordinal < 0 ? null : TicketStatus.ofOrdinal(ordinal);
+    }
+
+    /**
+     * Reads every record in slot order. Scans do not go through the cache, so
+     * they do not push hot tickets out of it.
+     */
+    @Override
+    public Stream<TicketSnapshot> stream() {
+        return IntStream.range(0, slotCount.get())
+            .mapToObj(this::readSlot)
+            .filter(Objects::nonNull);
+    }
+
+    private TicketSnapshot readSlot(int slot) {
+        long base = (long) slot * RECORD_BYTES;
+        // The id may be read while the slot is still being claimed; the lookup below rejects it then
+        Key key = new Key(records.getLong(base + ID_MSB), records.getLong(base + ID_LSB));
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            if (stripe.find(key) != slot) {
+                return null;
+            }
+            String id = key.toString();
+            TicketSnapshot cached = stripe.cache.get(id);
+            return cached != null ? cached : read(id, slot);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return slotCount.get();
+    }
+
+    // Bytes used by the mapped records and string heap
+    public long mappedBytes() {
+        return (long) slotCount.get() * RECORD_BYTES + strings.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            records.close();
+        } finally {
+            strings.close();
+        }
+    }
+
+    private Stripe stripe(Key key) {
+        return stripes[key.hash & (STRIPES - 1)];
+    }
+
+    private boolean idAt(int slot, Key key) {
+        long base = (long) slot * RECORD_BYTES;
+        return records.getLong(base + ID_MSB) == key.msb && records.getLong(base + ID_LSB) == key.lsb;
+    }
+
+    /**
+     * Tickets of one stripe: an open-addressing table from id to slot that
+     * compares ids against the mapped records, and the LRU snapshot cache.
+     */
+    private final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, TicketSnapshot> cache;
+        // slot + 1 per entry, 0 when empty
+        int[] table = new int[16];
+        int size;
+
+        Stripe(int cacheSize) {
+            cache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TicketSnapshot> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+        }
+
+        int find(Key key) {
+            int mask = table.length - 1;
+            for (int i = key.hash >>> 6 & mask; table[i] != 0; i = (i + 1) & mask) {
+                int slot = table[i] - 1;
+                if (idAt(slot, key)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        void insert(Key key, int slot) {
+            if (++size * 2 > table.length) {
+                int[] old = table;
+                table = new int[old.length * 2];
+                for (int entry : old) {
+                    if (entry != 0) {
+                        long base = (long) (entry - 1) * RECORD_BYTES;
+                        place(new Key(records.getLong(base + ID_MSB), records.getLong(base + ID_LSB)), entry);
+                    }
+                }
+            }
+            place(key, slot + 1);
+        }
+
+        private void place(Key key, int entry) {
+            int mask = table.length - 1;
+            int i = key.hash >>> 6 & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = entry;
+        }
+    }
+
+    private static final class Key {
+        final long msb;
+        final long lsb;
+        final int hash;
+
+        Key(long msb, long lsb) {
+            this.msb = msb;
+            this.lsb = lsb;
+            long mixed = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+            this.hash = (int) (mixed ^ (mixed >>> 32));
+        }
+
+        // Only canonical UUID strings, so an id always reads back unchanged
+        static Key parse(String id) {
+            if (id == null || id.length() != 36) {
+                return null;
+            }
+            try {
+                UUID uuid = UUID.fromString(id);
+                if (!uuid.toString().equals(id)) {
+                    return null;
+                }
+                return new Key(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new UUID(msb, lsb).toString();
+        }
+    }
+}
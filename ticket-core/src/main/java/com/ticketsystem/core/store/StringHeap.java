@@ -0,0 +1,65 @@
+package com.ticketsystem.core.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Append-only string storage in a mapped file. A string is stored as its UTF-8
+ * length followed by the bytes and referenced by its offset, -1 standing for
+ * null. Stored strings are never modified, so an offset stays valid for good.
+ */
+final class StringHeap implements Closeable {
+    static final long NULL = -1;
+
+    private static final int CHUNK_BYTES = 64 * 1024 * 1024;
+
+    private final MappedFile file;
+    private long end;
+
+    StringHeap(Path path) throws IOException {
+        this.file = new MappedFile(path, CHUNK_BYTES);
+    }
+
+    long append(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int size = Integer.BYTES + bytes.length;
+        if (size > CHUNK_BYTES) {
+            throw new IllegalArgumentException("Text too large for the mapped ticket store: " + bytes.length + " bytes");
+        }
+        long offset;
+        synchronized (this) {
+            offset = end;
+            // An entry never spans two chunks
+            long chunkLeft = CHUNK_BYTES - offset % CHUNK_BYTES;
+            if (size > chunkLeft) {
+                offset += chunkLeft;
+            }
+            end = offset + size;
+        }
+        file.putInt(offset, bytes.length);
+        file.putBytes(offset + Integer.BYTES, bytes);
+        return offset;
+    }
+
+    String read(long offset) {
+        if (offset == NULL) {
+            return null;
+        }
+        int length = file.getInt(offset);
+        return new String(file.getBytes(offset + Integer.BYTES, length), StandardCharsets.UTF_8);
+    }
+
+    synchronized long size() {
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.ticketsystem.core.store;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the few distinct values of a low-cardinality field, such as status or
+ * assignee, as small integer codes. -1 stands for null.
+ */
+final class SymbolTable {
+    static final int NULL = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[0];
+
+    int code(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    String value(int code) {
+        return code == NULL ? null : values[code];
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        String[] current = values;
+        String[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = value;
+        // Publish the value before its code, so a code is never seen without it
+        values = grown;
+        codes.put(value, current.length);
+        return current.length;
+    }
+
+    int size() {
+        return values.length;
+    }
+}
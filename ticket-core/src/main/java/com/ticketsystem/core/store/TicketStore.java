@@ -0,0 +1,39 @@
+package com.ticketsystem.core.store;
+
+import com.ticketsystem.api.model.TicketSnapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Table of the current snapshot of every ticket. The compute methods run the
+ * function while the ticket is locked, like the ConcurrentHashMap methods of
+ * the same name; a function that throws leaves the ticket unchanged. Tickets
+ * are never removed, so the functions must not return null; every store
+ * rejects a null result with {@link #requireTicket}.
+ */
+public interface TicketStore extends Closeable {
+    TicketSnapshot get(String id);
+
+    TicketSnapshot compute(String id, BiFunction<String, TicketSnapshot, TicketSnapshot> function);
+
+    TicketSnapshot computeIfPresent(String id, BiFunction<String, TicketSnapshot, TicketSnapshot> function);
+
+    // Weakly consistent, like the views of a concurrent map
+    Stream<TicketSnapshot> stream();
+
+    int size();
+
+    static TicketSnapshot requireTicket(String id, TicketSnapshot next) {
+        if (next == null) {
+            throw new IllegalStateException("Tickets cannot be removed: " + id);
+        }
+        return next;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,72 @@
+package com.ticketsystem.core;
+
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.service.TicketService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketServiceHostTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void failedStartReleasesJournalSoRebuildCanReopenIt() throws Exception {
+        Map<String, String> settings = new HashMap<>();
+        settings.put(TicketServiceHost.PERSISTENCE_DIR, directory.toString());
+        settings.put(TicketServiceHost.PERSISTENCE_DURABILITY, "group");
+        settings.put(TicketServiceHost.STORE, "unknown");
+
+        // The journal is opened before the store setting is rejected
+        TicketServiceHost failed = new TicketServiceHost(context(), settings::get, host -> { });
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> failed.ticketService().getTicket("any"));
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        assertFalse(walFlusherRunning(), "Journal of the failed start is still open");
+        failed.close();
+
+        settings.remove(TicketServiceHost.STORE);
+        TicketServiceHost rebuilt = new TicketServiceHost(context(), settings::get, host -> { });
+        Ticket ticket = rebuilt.ticketService().createTicket("VPN down", "Since the rebuild");
+        assertTrue(rebuilt.isReady());
+        rebuilt.close();
+        assertFalse(walFlusherRunning());
+
+        TicketServiceHost reopened = new TicketServiceHost(context(), settings::get, host -> { });
+        TicketService service = reopened.ticketService();
+        assertNotNull(service.getTicket(ticket.getId()));
+        assertEquals(1, service.getAllTickets().size());
+        reopened.close();
+    }
+
+    private static boolean walFlusherRunning() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .anyMatch(thread -> thread.getName().equals("ticket-wal-flusher") && thread.isAlive());
+    }
+
+    // Enough of a framework for the event whiteboard to open with no listeners
+    private static BundleContext context() {
+        return (BundleContext) Proxy.newProxyInstance(BundleContext.class.getClassLoader(),
+            new Class<?>[] {BundleContext.class}, (proxy, method, args) -> {
+                if (method.getName().equals("createFilter")) {
+                    return FrameworkUtil.createFilter((String) args[0]);
+                }
+                if (method.getReturnType() == boolean.class) {
+                    return false;
+                }
+                return null;
+            });
+    }
+}
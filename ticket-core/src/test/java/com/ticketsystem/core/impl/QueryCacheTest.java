@@ -0,0 +1,63 @@
+package com.ticketsystem.core.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryCacheTest {
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotServed() {
+        QueryCache cache = new QueryCache(100);
+        AtomicInteger loads = new AtomicInteger();
+        // The view changes while it is being loaded
+        cache.get("view", () -> {
+            cache.get("view", () -> Arrays.asList("warm"), List::size);
+            cache.invalidate(Collections.singletonList("view"));
+            loads.incrementAndGet();
+            return Arrays.asList("stale");
+        }, List::size);
+
+        List<String> reloaded = cache.get("view", () -> Arrays.asList("fresh"), List::size);
+        assertEquals(Arrays.asList("fresh"), reloaded);
+        assertEquals(Arrays.asList("fresh"), cache.get("view", () -> Arrays.asList("other"), List::size));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictsDownToCapacityKeepingRecentlyHitViews() {
+        QueryCache cache = new QueryCache(3);
+        for (String key : Arrays.asList("a", "b", "c")) {
+            cache.get(key, () -> Arrays.asList(key), List::size);
+        }
+        cache.get("d", () -> Arrays.asList("d"), List::size);
+        assertTrue(cache.statistics().get("cachedTickets") <= 3);
+        assertEquals(1L, cache.statistics().get("evictions"));
+
+        cache.resize(1);
+        assertEquals(1L, cache.statistics().get("cachedTickets"));
+        cache.resize(0);
+        assertEquals(0L, cache.statistics().get("cachedTickets"));
+        assertEquals(0L, cache.statistics().get("entries"));
+    }
+
+    @Test
+    void unknownAssigneesDoNotGrowTheCache() {
+        QueryCache cache = new QueryCache(100);
+        for (int i = 0; i < 10_000; i++) {
+            cache.get(QueryCache.assigneeKey("former.agent" + i), Collections::<String>emptyList, List::size);
+        }
+        assertTrue(cache.slotCount() <= 100, "Slots: " + cache.slotCount());
+        assertTrue(cache.statistics().get("cachedTickets") <= 100);
+        assertEquals(cache.slotCount(), cache.statistics().get("entries").intValue());
+
+        cache.resize(0);
+        assertEquals(0, cache.slotCount());
+    }
+}
@@ -0,0 +1,267 @@
+package com.ticketsystem.core.impl;
+
+import com.ticketsystem.api.event.TicketEvent;
+import com.ticketsystem.api.event.TicketEventListener;
+import com.ticketsystem.api.model.Reply;
+import com.ticketsystem.api.model.Ticket;
+import com.ticketsystem.api.model.TicketSnapshot;
+import com.ticketsystem.api.model.User;
+import com.ticketsystem.core.persistence.SnapshotStore;
+import com.ticketsystem.core.persistence.TicketJournal;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketEventLogTest {
+
+    @Test
+    void listenerNeverSeesAnEventBeforeTheTicketReflectsIt() throws Exception {
+        TicketServiceImpl service = new TicketServiceImpl();
+        List<String> violations = new CopyOnWriteArrayList<>();
+        AtomicLong delivered = new AtomicLong();
+        service.subscribe(event -> {
+            TicketSnapshot ticket = service.getTicketSnapshot(event.getTicketId());
+            if (ticket == null || ticket.getVersion() < event.getTicketVersion()) {
+                violations.add(event.getSequence() + " " + event.getType() + " ahead of " + ticket);
+            }
+            delivered.incrementAndGet();
+        }, -1, 16);
+
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new CopyOnWriteArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                done.add(writers.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        Ticket ticket = service.createTicket("Ticket " + i, "Checked by the listener");
+                        service.assignTicket(ticket.getId(), "it.agent" + i);
+                        service.addReply(ticket.getId(), "Looking", null);
+                        service.resolveTicket(ticket.getId());
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            writers.shutdown();
+        }
+        long last = service.getLastEventSequence();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (delivered.get() < last && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        service.close();
+
+        assertEquals(8000, last);
+        assertEquals(last, delivered.get());
+        assertTrue(violations.isEmpty(), () -> violations.size() + " early events, e.g. " + violations.get(0));
+    }
+
+    @Test
+    void eventsReachListenersOnlyOnceDurable() throws Exception {
+        CountDownLatch durable = new CountDownLatch(1);
+        TicketServiceImpl service = new TicketServiceImpl(new HeldJournal(durable));
+        List<TicketEvent> seen = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        service.subscribe(event -> {
+            seen.add(event);
+            delivered.countDown();
+        }, -1, 16);
+
+        CompletableFuture<Ticket> created = CompletableFuture.supplyAsync(
+            () -> service.createTicket("Printer jam", "Tray 2"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getTicketSnapshots().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // Visible, but the write is still waiting for the journal
+        Thread.sleep(100);
+        assertEquals(1, service.getTicketSnapshots().size());
+        assertTrue(seen.isEmpty(), "Event delivered before it was durable: " + seen);
+        assertEquals(0, service.getLastEventSequence());
+        assertTrue(service.getEventsAfter(0, 10).isEmpty());
+
+        durable.countDown();
+        Ticket ticket = created.get(5, TimeUnit.SECONDS);
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(ticket.getId(), seen.get(0).getTicketId());
+        assertEquals(1, service.getLastEventSequence());
+        service.close();
+    }
+
+    @Test
+    void eventsAreReleasedInSequenceOrder() {
+        TicketEventLog log = new TicketEventLog(TicketJournal.NONE, 16);
+        TicketSnapshot ticket = TicketSnapshot.builder("t1").version(1).build();
+        TicketEventLog.Pending first = new TicketEventLog.Pending();
+        TicketEventLog.Pending second = new TicketEventLog.Pending();
+        log.append(first, TicketEvent.Type.CREATED, ticket, null, 1);
+        log.append(second, TicketEvent.Type.EDITED, ticket, null, 2);
+
+        log.release(second);
+        assertEquals(0, log.lastSequence());
+        assertTrue(log.after(0, 10).isEmpty());
+
+        log.release(first);
+        assertEquals(2, log.lastSequence());
+        assertEquals(2, log.after(0, 10).size());
+        log.close();
+    }
+
+    @Test
+    void eventsOfAWriteInterruptedBeforeDurableDoNotStallLaterOnes() throws Exception {
+        CountDownLatch durable = new CountDownLatch(1);
+        TicketServiceImpl service = new TicketServiceImpl(new HeldJournal(durable));
+        List<TicketEvent> seen = new CopyOnWriteArrayList<>();
+        List<Long> missed = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        service.subscribe(new TicketEventListener() {
+            @Override
+            public void ticketChanged(TicketEvent event) {
+                seen.add(event);
+                delivered.countDown();
+            }
+
+            @Override
+            public void eventsMissed(long fromSequence, long toSequence) {
+                missed.add(fromSequence);
+                missed.add(toSequence);
+            }
+        }, -1, 16);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                service.createTicket("Printer jam", "Tray 2");
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        writer.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getTicketSnapshots().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        writer.interrupt();
+        writer.join(5000);
+        assertTrue(failure.get() instanceof IllegalStateException, "Writer was not interrupted: " + failure.get());
+
+        durable.countDown();
+        Ticket later = service.createTicket("Network down", "Floor 3");
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(2, service.getLastEventSequence());
+        assertEquals(1, seen.size());
+        assertEquals(later.getId(), seen.get(0).getTicketId());
+        assertEquals(Arrays.asList(1L, 1L), missed);
+        service.close();
+    }
+
+    @Test
+    void snapshotsHoldUnreleasedEventsOnlyUpToTheirPosition() {
+        TicketEventLog log = new TicketEventLog(new HeldJournal(new CountDownLatch(0)), 16);
+        TicketSnapshot ticket = TicketSnapshot.builder("t1").version(1).build();
+        TicketEventLog.Pending first = new TicketEventLog.Pending();
+        TicketEventLog.Pending second = new TicketEventLog.Pending();
+        TicketEventLog.Pending third = new TicketEventLog.Pending();
+        log.append(first, TicketEvent.Type.CREATED, ticket, null, 1);
+        log.append(second, TicketEvent.Type.EDITED, ticket, null, 2);
+        log.append(third, TicketEvent.Type.EDITED, ticket, null, 3);
+        log.release(first);
+        log.release(third);
+
+        assertEquals(1, log.retained(1).size());
+        assertEquals(2, log.retained(2).size());
+        log.release(second);
+        assertEquals(3, log.retained(1).size());
+        log.close();
+    }
+
+    @Test
+    void listenerFailuresAreCountedAndDeliveryGoesOn() throws Exception {
+        TicketServiceImpl service = new TicketServiceImpl();
+        CountDownLatch delivered = new CountDownLatch(2);
+        service.subscribe(event -> {
+            delivered.countDown();
+            if (event.getSequence() == 1) {
+                throw new IllegalStateException("Listener bug");
+            }
+        }, -1, 16);
+
+        Ticket ticket = service.createTicket("Printer jam", "Tray 2");
+        service.resolveTicket(ticket.getId());
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, service.getGauges().get("eventListenerFailures"));
+        service.close();
+    }
+
+    // Holds every write in awaitDurable until the latch opens
+    private static final class HeldJournal implements TicketJournal {
+        private final CountDownLatch durable;
+        private final AtomicLong position = new AtomicLong();
+
+        HeldJournal(CountDownLatch durable) {
+            this.durable = durable;
+        }
+
+        @Override
+        public long ticketSaved(TicketSnapshot ticket) {
+            return position.incrementAndGet();
+        }
+
+        @Override
+        public long replySaved(String ticketId, Reply reply) {
+            return position.incrementAndGet();
+        }
+
+        @Override
+        public long userSaved(User user) {
+            return position.incrementAndGet();
+        }
+
+        @Override
+        public long eventSaved(TicketEvent event) {
+            return position.incrementAndGet();
+        }
+
+        @Override
+        public void awaitDurable(long position) {
+            try {
+                durable.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for the journal", e);
+            }
+        }
+
+        @Override
+        public long position() {
+            return position.get();
+        }
+
+        @Override
+        public void checkpoint(long position, SnapshotStore.StateSource state) {
+        }
+
+        @Override
+        public void replay(RecoveryHandler handler) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
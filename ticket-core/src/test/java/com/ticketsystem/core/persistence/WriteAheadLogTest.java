@@ -0,0 +1,62 @@
+package com.ticketsystem.core.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversFromCrashBeforeFirstFrameOfNewSegment() throws Exception {
+        writeRecords("a", "b");
+        // Crash right after roll() created the next segment, before anything was written to it
+        Files.createFile(directory.resolve(WriteAheadLog.segmentName(3)));
+
+        writeRecords("c");
+        assertEquals(Arrays.asList("a", "b", "c"), replay());
+    }
+
+    @Test
+    void recoversFromNewSegmentTornInsideItsFirstFrame() throws Exception {
+        writeRecords("a", "b");
+        Files.write(directory.resolve(WriteAheadLog.segmentName(3)), new byte[] {0, 0, 0, 9, 1, 2});
+
+        writeRecords("c");
+        writeRecords("d");
+        assertEquals(Arrays.asList("a", "b", "c", "d"), replay());
+    }
+
+    @Test
+    void recoversFromEmptyOnlySegment() throws Exception {
+        Files.createFile(directory.resolve(WriteAheadLog.segmentName(1)));
+
+        writeRecords("a");
+        assertEquals(Arrays.asList("a"), replay());
+    }
+
+    private void writeRecords(String... records) throws Exception {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Durability.SYNC)) {
+            for (String record : records) {
+                log.awaitDurable(log.append(record.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    private List<String> replay() throws Exception {
+        List<String> records = new ArrayList<>();
+        try (WriteAheadLog log = WriteAheadLog.open(directory, Durability.SYNC)) {
+            log.replay(1, payload -> records.add(new String(payload, StandardCharsets.UTF_8)));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ticketsystem.core.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class MappedFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void startsEmptyAndDeletesItsFileOnClose() throws Exception {
+        Path path = directory.resolve("tickets.dat");
+        try (MappedFile earlier = new MappedFile(path, 4096)) {
+            earlier.putLong(8, 42);
+            earlier.putLong(4096 + 8, 43);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertFalse(files.findAny().isPresent());
+        }
+
+        try (MappedFile replacement = new MappedFile(path, 4096)) {
+            assertEquals(0, replacement.getLong(8));
+            assertEquals(0, replacement.getLong(4096 + 8));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.ticketsystem.core.store;
+
+import com.ticketsystem.api.model.TicketSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TicketStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void everyStoreRejectsRemovingATicket() throws Exception {
+        try (TicketStore mapped = new MappedTicketStore(directory)) {
+            assertRejectsNull(new HeapTicketStore());
+            assertRejectsNull(mapped);
+        }
+    }
+
+    private static void assertRejectsNull(TicketStore store) {
+        String id = UUID.randomUUID().toString();
+        TicketSnapshot ticket = TicketSnapshot.builder(id).version(1).title("Printer jam").build();
+        store.compute(id, (key, previous) -> ticket);
+
+        assertThrows(IllegalStateException.class, () -> store.compute(id, (key, previous) -> null));
+        assertThrows(IllegalStateException.class, () -> store.computeIfPresent(id, (key, previous) -> null));
+        assertEquals(1, store.size());
+        assertEquals("Printer jam", store.get(id).getTitle());
+    }
+}